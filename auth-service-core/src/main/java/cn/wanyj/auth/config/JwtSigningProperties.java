@@ -0,0 +1,66 @@
+package cn.wanyj.auth.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JWT Signing Properties - JWT签名配置
+ * 支持 HS256（共享密钥）以及 ES256 / EdDSA（非对称密钥，下游服务可通过 JWKS 本地验证）
+ * @author wanyj
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "jwt.signing")
+public class JwtSigningProperties {
+
+    /**
+     * 签名算法：HS256（默认，使用 jwt.secret）、ES256、EdDSA
+     */
+    private String algorithm = "HS256";
+
+    /**
+     * 当前用于签发令牌的密钥ID（kid）
+     */
+    private String activeKeyId;
+
+    /**
+     * 是否继续接受 HS256 签名的令牌（切换到非对称算法期间保持 true，旧令牌过期后可关闭）
+     */
+    private boolean acceptHmac = true;
+
+    /**
+     * JWKS 响应的缓存时间（秒）
+     */
+    private long jwksMaxAge = 3600;
+
+    /**
+     * 密钥列表，所有密钥的公钥都用于验证，便于密钥轮换
+     */
+    private List<KeyEntry> keys = new ArrayList<>();
+
+    /**
+     * Signing key entry - 签名密钥
+     */
+    @Data
+    public static class KeyEntry {
+
+        /**
+         * 密钥ID，写入令牌头部的 kid
+         */
+        private String kid;
+
+        /**
+         * PKCS#8 私钥（PEM 或 Base64 DER），仅签发密钥需要
+         */
+        private String privateKey;
+
+        /**
+         * X.509 公钥（PEM 或 Base64 DER）
+         */
+        private String publicKey;
+    }
+}
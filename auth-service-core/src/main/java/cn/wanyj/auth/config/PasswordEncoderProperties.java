@@ -0,0 +1,86 @@
+package cn.wanyj.auth.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Password Encoder Properties - 密码编码配置
+ * 新密码使用 algorithm 指定的算法；已有哈希按其前缀（无前缀视为 BCrypt）校验，参数过时的在登录成功时重新哈希
+ * @author wanyj
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "password.encoder")
+public class PasswordEncoderProperties {
+
+    /**
+     * 新密码的哈希算法：bcrypt（默认）、argon2、pbkdf2
+     */
+    private String algorithm = "bcrypt";
+
+    /**
+     * 单次哈希的目标耗时（毫秒），用于启动时校准 BCrypt 强度
+     */
+    private long targetLatency = 100;
+
+    private Bcrypt bcrypt = new Bcrypt();
+
+    private Argon2 argon2 = new Argon2();
+
+    private Pbkdf2 pbkdf2 = new Pbkdf2();
+
+    /**
+     * BCrypt settings - BCrypt 参数
+     */
+    @Data
+    public static class Bcrypt {
+
+        /**
+         * 强度（log2 轮数），0 表示启动时按 target-latency 校准
+         */
+        private int strength = 0;
+
+        /**
+         * 校准结果的下限与上限
+         */
+        private int minStrength = 10;
+
+        private int maxStrength = 14;
+    }
+
+    /**
+     * Argon2id settings - Argon2id 参数
+     */
+    @Data
+    public static class Argon2 {
+
+        private int saltLength = 16;
+
+        private int hashLength = 32;
+
+        private int parallelism = 1;
+
+        /**
+         * 内存（KiB）
+         */
+        private int memory = 19456;
+
+        private int iterations = 2;
+    }
+
+    /**
+     * PBKDF2-HMAC-SHA256 settings - PBKDF2 参数
+     */
+    @Data
+    public static class Pbkdf2 {
+
+        private int saltLength = 16;
+
+        /**
+         * 迭代次数（固定值，不校准）
+         * 哈希值中不记录迭代次数，已有 {pbkdf2} 哈希只能以写入时的次数校验；未经迁移不得修改
+         */
+        private int iterations = 310000;
+    }
+}
@@ -0,0 +1,61 @@
+package cn.wanyj.auth.config;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RPC Executor Properties - RPC线程池配置
+ * 默认线程池之外，可按服务或方法配置独立的隔离线程池（舱壁），避免慢方法拖垮快方法
+ * @author wanyj
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rpc")
+public class RpcExecutorProperties {
+
+    /**
+     * 默认线程池，未匹配任何隔离线程池的方法使用
+     */
+    private Pool executor = new Pool();
+
+    /**
+     * 隔离线程池，key 为线程池名称
+     */
+    private Map<String, Bulkhead> bulkheads = new LinkedHashMap<>();
+
+    /**
+     * Thread pool settings - 线程池参数
+     */
+    @Data
+    public static class Pool {
+
+        private int coreSize = 32;
+
+        private int maxSize = 64;
+
+        /**
+         * 有界队列容量，队列满时拒绝新请求
+         */
+        private int queueCapacity = 1000;
+    }
+
+    /**
+     * Bulkhead - 隔离线程池
+     */
+    @Data
+    @EqualsAndHashCode(callSuper = true)
+    public static class Bulkhead extends Pool {
+
+        /**
+         * 使用该线程池的服务或方法，如 AuthRpcServiceProtobuf（整个服务）或 AuthRpcServiceProtobuf.authenticate（单个方法）
+         */
+        private List<String> methods = new ArrayList<>();
+    }
+}
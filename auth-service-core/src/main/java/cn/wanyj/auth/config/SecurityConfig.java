@@ -2,6 +2,7 @@ package cn.wanyj.auth.config;
 
 import cn.wanyj.auth.security.JwtAuthenticationEntryPoint;
 import cn.wanyj.auth.security.JwtAuthenticationFilter;
+import cn.wanyj.auth.security.PasswordEncoders;
 import cn.wanyj.auth.security.UserDetailsServiceImpl;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
@@ -15,7 +16,6 @@ import org.springframework.security.authentication.dao.DaoAuthenticationProvider
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -39,6 +39,7 @@ public class SecurityConfig {
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
     private final JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
     private final UserDetailsServiceImpl userDetailsService;
+    private final PasswordEncoderProperties passwordEncoderProperties;
 
     /**
      * Configure security filter chain
@@ -72,11 +73,12 @@ public class SecurityConfig {
                         .requestMatchers("/", "/index.html", "/login", "/login.html").permitAll()
                         .requestMatchers("/assets/**", "/css/**", "/js/**", "/favicon.ico").permitAll()
 
-                        // Chrome DevTools (browser auto-request)
+                        // JWKS public keys and Chrome DevTools (browser auto-request)
                         .requestMatchers("/.well-known/**").permitAll()
 
-                        // Public API endpoints (register, login, refresh token, logout)
-                        .requestMatchers("/api/auth/register", "/api/auth/login", "/api/auth/refresh", "/api/auth/logout").permitAll()
+                        // Public API endpoints (register, username check, login, refresh token, logout)
+                        .requestMatchers("/api/auth/register", "/api/auth/username-available", "/api/auth/login",
+                                "/api/auth/refresh", "/api/auth/logout").permitAll()
 
                         // Tenant code check and available tenants (for login/registration)
                         .requestMatchers("/api/tenant/check-code", "/api/tenant/available").permitAll()
@@ -119,11 +121,11 @@ public class SecurityConfig {
 
     /**
      * Password encoder bean
-     * 密码编码器
+     * 密码编码器（带算法前缀，启动时按目标耗时校准成本）
      */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return PasswordEncoders.create(passwordEncoderProperties);
     }
 
     /**
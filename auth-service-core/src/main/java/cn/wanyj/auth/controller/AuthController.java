@@ -8,6 +8,7 @@ import cn.wanyj.auth.dto.response.UserResponse;
 import cn.wanyj.auth.exception.ApiResponse;
 import cn.wanyj.auth.security.SecurityUtils;
 import cn.wanyj.auth.service.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -15,6 +16,8 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Auth Controller - 认证控制器
  * 处理用户注册、登录、登出等认证相关操作
@@ -34,12 +37,26 @@ public class AuthController {
      * POST /api/auth/register
      */
     @PostMapping("/register")
-    public ResponseEntity<ApiResponse<TokenResponse>> register(@Valid @RequestBody RegisterRequest request) {
+    public CompletableFuture<ResponseEntity<ApiResponse<TokenResponse>>> register(
+            @Valid @RequestBody RegisterRequest request) {
         log.info("Registration request for username: {}", request.getUsername());
-        TokenResponse token = authService.register(request);
-        return ResponseEntity
-                .status(HttpStatus.CREATED)
-                .body(ApiResponse.success(201, "注册成功", token));
+        // Async response: the request thread is released while the password is hashed
+        return authService.register(request)
+                .thenApply(token -> ResponseEntity
+                        .status(HttpStatus.CREATED)
+                        .body(ApiResponse.success(201, "注册成功", token)));
+    }
+
+    /**
+     * Check if a username is available
+     * 检查用户名是否可用（注册页面）
+     * GET /api/auth/username-available
+     */
+    @GetMapping("/username-available")
+    public ResponseEntity<ApiResponse<Boolean>> checkUsernameAvailable(
+            @RequestParam Long tenantId, @RequestParam String username, HttpServletRequest httpRequest) {
+        boolean available = authService.isUsernameAvailable(tenantId, username, httpRequest.getRemoteAddr());
+        return ResponseEntity.ok(ApiResponse.success(200, "成功", available));
     }
 
     /**
@@ -48,10 +65,14 @@ public class AuthController {
      * POST /api/auth/login
      */
     @PostMapping("/login")
-    public ResponseEntity<ApiResponse<TokenResponse>> login(@Valid @RequestBody LoginRequest request) {
+    public CompletableFuture<ResponseEntity<ApiResponse<TokenResponse>>> login(
+            @Valid @RequestBody LoginRequest request, HttpServletRequest httpRequest) {
         log.info("Login request for username: {}", request.getUsername());
-        TokenResponse token = authService.login(request);
-        return ResponseEntity.ok(ApiResponse.success(200, "登录成功", token));
+        // Client address as resolved from X-Forwarded-For of trusted proxies (server.forward-headers-strategy)
+        request.setClientIp(httpRequest.getRemoteAddr());
+        // Async response: the request thread is released while the password is verified
+        return authService.login(request)
+                .thenApply(token -> ResponseEntity.ok(ApiResponse.success(200, "登录成功", token)));
     }
 
     /**
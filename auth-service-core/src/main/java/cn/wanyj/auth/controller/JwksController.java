@@ -0,0 +1,38 @@
+package cn.wanyj.auth.controller;
+
+import cn.wanyj.auth.config.JwtSigningProperties;
+import cn.wanyj.auth.security.JwtKeyStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * JWKS Controller - 公钥发布控制器
+ * 发布令牌验证公钥，下游服务可据此在本地验证令牌，无需调用 parseToken RPC
+ * @author wanyj
+ */
+@RestController
+@RequiredArgsConstructor
+public class JwksController {
+
+    private final JwtKeyStore jwtKeyStore;
+    private final JwtSigningProperties signingProperties;
+
+    /**
+     * Get JSON Web Key Set
+     * 获取 JWKS（支持 ETag 条件请求）
+     * GET /.well-known/jwks.json
+     */
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, Object>> jwks() {
+        return ResponseEntity.ok()
+                .eTag(jwtKeyStore.getJwkSetETag())
+                .cacheControl(CacheControl.maxAge(Duration.ofSeconds(signingProperties.getJwksMaxAge())).cachePublic())
+                .body(jwtKeyStore.getJwkSet());
+    }
+}
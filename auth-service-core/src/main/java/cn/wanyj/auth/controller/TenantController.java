@@ -18,6 +18,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -122,8 +123,11 @@ public class TenantController {
         log.info("Listing all tenants");
 
         List<cn.wanyj.auth.entity.Tenant> tenants = tenantService.getAllTenants();
+        // 一次查询取回全部租户的用户计数
+        Map<Long, Long> userCounts = tenantMapper.findUserCounts().stream()
+                .collect(Collectors.toMap(Tenant::getId, Tenant::getUserCount));
         List<TenantResponse> responses = tenants.stream()
-                .map(this::mapToResponse)
+                .map(tenant -> mapToResponse(tenant, userCounts.getOrDefault(tenant.getId(), 0L)))
                 .collect(Collectors.toList());
 
         return ResponseEntity.ok(ApiResponse.success(200, "成功", responses));
@@ -188,8 +192,11 @@ public class TenantController {
      * 映射 Tenant 到 TenantResponse
      */
     private TenantResponse mapToResponse(cn.wanyj.auth.entity.Tenant tenant) {
-        long userCount = tenantMapper.countUsersByTenantId(tenant.getId());
+        Long userCount = tenantMapper.findUserCount(tenant.getId());
+        return mapToResponse(tenant, userCount != null ? userCount : 0L);
+    }
 
+    private TenantResponse mapToResponse(cn.wanyj.auth.entity.Tenant tenant, long userCount) {
         return TenantResponse.builder()
                 .id(tenant.getId())
                 .tenantCode(tenant.getTenantCode())
@@ -42,16 +42,19 @@ public class UserController {
      * Search users with pagination
      * 分页搜索用户
      * GET /api/users?page=1&size=10&keyword=test
+     * GET /api/users?size=10&cursor={nextCursor}&withTotal=false
      */
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<ApiResponse<PageResponse<UserResponse>>> searchUsers(
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(required = false) String keyword) {
-        log.info("Search users: page={}, size={}, keyword={}", page, size, keyword);
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "true") boolean withTotal) {
+        log.info("Search users: page={}, size={}, keyword={}, cursor={}", page, size, keyword, cursor);
 
-        PageResponse<UserResponse> users = userService.searchUsers(keyword, page, size);
+        PageResponse<UserResponse> users = userService.searchUsers(keyword, page, size, cursor, withTotal);
 
         return ResponseEntity.ok(ApiResponse.success(users));
     }
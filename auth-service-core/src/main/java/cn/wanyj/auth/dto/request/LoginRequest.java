@@ -1,5 +1,6 @@
 package cn.wanyj.auth.dto.request;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -29,4 +30,10 @@ public class LoginRequest {
      */
     @NotNull(message = "租户ID不能为空")
     private Long tenantId;
+
+    /**
+     * 客户端IP - 由服务端填充（用于登录限流），不接受请求体传入
+     */
+    @JsonIgnore
+    private String clientIp;
 }
@@ -23,4 +23,9 @@ public class PageResponse<T> {
     private Integer page;
     private Integer size;
     private List<T> items;
+
+    /**
+     * 下一页游标（keyset 分页），没有更多数据时为 null
+     */
+    private String nextCursor;
 }
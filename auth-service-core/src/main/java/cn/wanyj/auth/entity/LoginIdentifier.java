@@ -0,0 +1,78 @@
+package cn.wanyj.auth.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * LoginIdentifier Entity - 登录标识实体
+ * 用户名、邮箱、手机号各一行，(tenant_id, normalized_value) 唯一，登录时无论输入哪种标识都是一次唯一索引点查
+ * @author wanyj
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoginIdentifier {
+
+    public static final String KIND_USERNAME = "username";
+    public static final String KIND_EMAIL = "email";
+    public static final String KIND_PHONE = "phone";
+
+    private Long id;
+
+    private Long tenantId;
+
+    /**
+     * 标识类型：username / email / phone
+     */
+    private String kind;
+
+    /**
+     * 规范化后的标识值
+     */
+    private String normalizedValue;
+
+    private Long userId;
+
+    private LocalDateTime createdAt;
+
+    /**
+     * Normalize a typed identifier; the same rule applies to every kind so lookups need no kind
+     * 规范化标识：去除首尾空白并转为小写，各类型规则相同，查询时无需判断类型
+     */
+    public static String normalize(String value) {
+        return value == null ? null : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Identifiers of a user (username, and email / phone when present)
+     * 获取用户的全部登录标识
+     */
+    public static List<LoginIdentifier> of(User user) {
+        List<LoginIdentifier> identifiers = new ArrayList<>();
+        identifiers.add(of(user, KIND_USERNAME, user.getUsername()));
+        if (user.getEmail() != null && !user.getEmail().isBlank()) {
+            identifiers.add(of(user, KIND_EMAIL, user.getEmail()));
+        }
+        if (user.getPhone() != null && !user.getPhone().isBlank()) {
+            identifiers.add(of(user, KIND_PHONE, user.getPhone()));
+        }
+        return identifiers;
+    }
+
+    private static LoginIdentifier of(User user, String kind, String value) {
+        return LoginIdentifier.builder()
+                .tenantId(user.getTenantId())
+                .kind(kind)
+                .normalizedValue(normalize(value))
+                .userId(user.getId())
+                .build();
+    }
+}
@@ -54,6 +54,11 @@ public class Tenant {
      */
     private Boolean isPlatform;
 
+    /**
+     * 当前用户数（user_count 计数列，仅用户数相关查询填充）
+     */
+    private Long userCount;
+
     /**
      * 创建时间
      */
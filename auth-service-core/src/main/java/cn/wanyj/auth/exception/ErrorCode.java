@@ -15,7 +15,9 @@ public enum ErrorCode {
     UNAUTHORIZED(401, "未授权"),
     FORBIDDEN(403, "禁止访问"),
     NOT_FOUND(404, "资源不存在"),
+    TOO_MANY_REQUESTS(429, "请求过多，请稍后重试"),
     INTERNAL_SERVER_ERROR(500, "服务器内部错误"),
+    SERVICE_UNAVAILABLE(503, "服务暂不可用，请稍后重试"),
 
     // Authentication errors - 认证错误
     INVALID_CREDENTIALS(1001, "用户名或密码错误"),
@@ -39,6 +41,9 @@ public enum ErrorCode {
     TENANT_CODE_EXISTS(1017, "租户编码已存在"),
     TENANT_NOT_FOUND(1018, "租户不存在"),
 
+    // User errors - 用户错误
+    PHONE_EXISTS(1019, "手机号已被使用"),
+
     // Authorization errors - 授权错误
     ACCESS_DENIED(2001, "无权限访问"),
     ROLE_NOT_FOUND(2002, "角色不存在"),
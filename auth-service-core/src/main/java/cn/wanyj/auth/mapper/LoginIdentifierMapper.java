@@ -0,0 +1,51 @@
+package cn.wanyj.auth.mapper;
+
+import cn.wanyj.auth.entity.LoginIdentifier;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * LoginIdentifier Mapper - 登录标识数据访问层
+ * @author wanyj
+ */
+@Mapper
+public interface LoginIdentifierMapper {
+
+    /**
+     * Resolve a normalized identifier to its user id
+     * 根据规范化标识查找用户ID（唯一索引点查）
+     */
+    Long findUserId(@Param("tenantId") Long tenantId, @Param("normalizedValue") String normalizedValue);
+
+    /**
+     * All normalized identifiers of a tenant
+     * 查询租户的全部规范化标识（用于构建布隆过滤器）
+     */
+    List<String> findNormalizedValuesByTenantId(@Param("tenantId") Long tenantId);
+
+    /**
+     * Normalized identifiers among the given values that are already taken in the tenant
+     * 一次查询返回给定标识中已被占用的规范化值
+     */
+    List<String> findTakenValues(@Param("tenantId") Long tenantId, @Param("normalizedValues") List<String> normalizedValues);
+
+    /**
+     * Insert identifiers
+     * 批量插入登录标识
+     */
+    int insertBatch(@Param("identifiers") List<LoginIdentifier> identifiers);
+
+    /**
+     * Delete identifiers of a user
+     * 删除用户的登录标识
+     */
+    int deleteByUserId(@Param("userId") Long userId);
+
+    /**
+     * Delete identifiers of a tenant
+     * 删除租户的全部登录标识
+     */
+    int deleteByTenantId(@Param("tenantId") Long tenantId);
+}
@@ -79,10 +79,59 @@ public interface TenantMapper {
     int deleteById(@Param("id") Long id);
 
     /**
-     * 统计租户下的用户数量
+     * 统计租户下的用户数量（全量计数，仅用于对账）
      *
      * @param tenantId 租户ID
      * @return 用户数量
      */
     long countUsersByTenantId(@Param("tenantId") Long tenantId);
+
+    /**
+     * 查询租户的用户计数
+     *
+     * @param tenantId 租户ID
+     * @return 用户计数，租户不存在时返回 null
+     */
+    Long findUserCount(@Param("tenantId") Long tenantId);
+
+    /**
+     * 查询全部租户的用户计数（只填充 id 与 userCount）
+     *
+     * @return 租户列表
+     */
+    List<Tenant> findUserCounts();
+
+    /**
+     * 占用一个用户名额：未设置上限或未达上限时计数加一
+     *
+     * @param tenantId 租户ID
+     * @return 影响行数，0 表示已达上限
+     */
+    int reserveUserSlot(@Param("tenantId") Long tenantId);
+
+    /**
+     * 无条件调整用户计数（不会小于 0）
+     *
+     * @param tenantId 租户ID
+     * @param delta 增量
+     * @return 影响行数
+     */
+    int adjustUserCount(@Param("tenantId") Long tenantId, @Param("delta") int delta);
+
+    /**
+     * 锁定租户行（SELECT ... FOR UPDATE），对账期间阻塞并发的注册与删除
+     *
+     * @param tenantId 租户ID
+     * @return 租户ID，租户不存在时返回 null
+     */
+    Long lockById(@Param("tenantId") Long tenantId);
+
+    /**
+     * 更新用户计数
+     *
+     * @param tenantId 租户ID
+     * @param userCount 用户数
+     * @return 影响行数
+     */
+    int updateUserCount(@Param("tenantId") Long tenantId, @Param("userCount") long userCount);
 }
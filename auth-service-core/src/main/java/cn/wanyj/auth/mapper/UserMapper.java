@@ -5,7 +5,9 @@ import cn.wanyj.auth.entity.User;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -21,6 +23,12 @@ public interface UserMapper {
      */
     User findById(@Param("id") Long id);
 
+    /**
+     * Find users by ids and tenant id (password excluded)
+     * 根据ID列表和租户ID批量查找用户（不含密码）
+     */
+    List<User> findByIds(@Param("ids") List<Long> ids, @Param("tenantId") Long tenantId);
+
     /**
      * Find user by username and tenant id
      * 根据用户名和租户ID查找用户
@@ -40,22 +48,25 @@ public interface UserMapper {
     User findByUsernameOrEmail(@Param("identifier") String identifier, @Param("tenantId") Long tenantId);
 
     /**
-     * Check if username exists in tenant
-     * 检查用户名在租户内是否存在
-     */
-    boolean existsByUsername(@Param("username") String username, @Param("tenantId") Long tenantId);
-
-    /**
-     * Check if email exists in tenant
-     * 检查邮箱在租户内是否存在
+     * Find login credentials (id, tenant, password hash, status and display fields) by a normalized login identifier
+     * 根据规范化的登录标识（用户名、邮箱或手机号）查找登录凭据，不加载角色与权限
      */
-    boolean existsByEmail(@Param("email") String email, @Param("tenantId") Long tenantId);
+    User findCredentialsByLoginIdentifier(@Param("normalizedValue") String normalizedValue, @Param("tenantId") Long tenantId);
 
     /**
-     * Find users by keyword (username or email) with pagination
-     * 根据关键字搜索用户（分页）
+     * Find one page of users (password excluded), newest first, optionally filtered by keyword (username or email)
+     * 分页查询用户（不含密码），按 (created_at, id) 倒序
+     * 传入游标时从游标之后继续（keyset 分页，任意深度都只扫描一页）；否则按 offset 跳过
+     *
+     * @param cursorCreatedAt 上一页最后一条的创建时间，为 null 时使用 offset
+     * @param cursorId 上一页最后一条的ID
      */
-    List<User> findByKeyword(@Param("keyword") String keyword, @Param("tenantId") Long tenantId);
+    List<User> findPage(@Param("tenantId") Long tenantId,
+                        @Param("keyword") String keyword,
+                        @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+                        @Param("cursorId") Long cursorId,
+                        @Param("offset") int offset,
+                        @Param("limit") int limit);
 
     /**
      * Count users by keyword
@@ -69,18 +80,6 @@ public interface UserMapper {
      */
     List<User> findAllByTenantId(@Param("tenantId") Long tenantId);
 
-    /**
-     * Find all users with roles by tenant id
-     * 根据租户ID查找所有用户及其角色信息
-     */
-    List<User> findAllByTenantIdWithRoles(@Param("tenantId") Long tenantId);
-
-    /**
-     * Count all users by tenant id
-     * 统计租户下的用户总数
-     */
-    long countAllByTenantId(@Param("tenantId") Long tenantId);
-
     /**
      * Insert user
      * 插入用户
@@ -93,6 +92,30 @@ public interface UserMapper {
      */
     int update(User user);
 
+    /**
+     * Update last login times of several users in one statement; older values never overwrite newer ones
+     * 批量更新最后登录时间，只会向后推进
+     *
+     * @param lastLogins userId -> last login time
+     */
+    int updateLastLoginAtBatch(@Param("lastLogins") Map<Long, LocalDateTime> lastLogins);
+
+    /**
+     * Update password hash
+     * 更新密码哈希
+     */
+    int updatePassword(@Param("id") Long id, @Param("password") String password);
+
+    /**
+     * Replace the password hash only if it is still the given one (compare-and-set)
+     * 仅当密码哈希仍为 oldPassword 时更新，用于登录时的重新哈希，不会覆盖并发修改后的新密码
+     *
+     * @return 1 表示已更新，0 表示哈希已被修改
+     */
+    int updatePasswordIfUnchanged(@Param("id") Long id,
+                                  @Param("oldPassword") String oldPassword,
+                                  @Param("password") String password);
+
     /**
      * Delete user by id
      * 根据ID删除用户
@@ -19,6 +19,12 @@ public interface UserRoleMapper {
      */
     List<UserRole> findByUserId(@Param("userId") Long userId);
 
+    /**
+     * Find user roles by user ids
+     * 根据用户ID列表批量查找用户角色关联
+     */
+    List<UserRole> findByUserIds(@Param("userIds") List<Long> userIds);
+
     /**
      * Find user roles by role id
      * 根据角色ID查找用户角色关联
@@ -2,22 +2,35 @@ package cn.wanyj.auth.rpc;
 
 import cn.wanyj.auth.api.protobuf.*;
 import cn.wanyj.auth.dto.request.LoginRequest;
-import cn.wanyj.auth.dto.response.TokenResponse;
 import cn.wanyj.auth.dto.response.UserResponse;
 import cn.wanyj.auth.exception.BusinessException;
+import cn.wanyj.auth.exception.ErrorCode;
 import cn.wanyj.auth.mapper.UserMapper;
+import cn.wanyj.auth.security.AuthorizationCache;
+import cn.wanyj.auth.security.EffectiveAuthorities;
 import cn.wanyj.auth.security.JwtTokenProvider;
 import cn.wanyj.auth.service.AuthService;
 import cn.wanyj.auth.service.TokenService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.dubbo.config.annotation.DubboService;
+import org.apache.dubbo.rpc.RpcContext;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 /**
  * 认证服务 RPC 实现 - Protobuf IDL 模式
  * 使用 Protobuf 定义的消息类型进行序列化
+ * 同时提供异步实现，阻塞的数据库/Redis/BCrypt 调用在 {@link RpcExecutors} 上执行
  *
  * @author wanyj
  */
@@ -31,66 +44,93 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class AuthRpcServiceProtobufImpl extends DubboAuthRpcServiceProtobufTriple.AuthRpcServiceProtobufImplBase {
 
+    private static final String SERVICE = "AuthRpcServiceProtobuf";
+
+    // Attachment carrying the end-user IP for login rate limiting
+    private static final String CLIENT_IP = "client-ip";
+
+    // Upper bound of ids per IN (...) query
+    private static final int MAX_BATCH_SIZE = 500;
+
+    // Authentication failures a retry would repeat; any other failure is marked retryable and never replayed
+    private static final Set<Integer> DEFINITIVE_FAILURES = Set.of(
+            ErrorCode.INVALID_CREDENTIALS.getCode(),
+            ErrorCode.USER_NOT_FOUND.getCode(),
+            ErrorCode.USER_DISABLED.getCode());
+
     private final AuthService authService;
     private final TokenService tokenService;
     private final JwtTokenProvider jwtTokenProvider;
     private final UserMapper userMapper;
+    private final AuthorizationCache authorizationCache;
+    private final RpcExecutors rpcExecutors;
 
     @Override
     public AuthResult authenticate(LoginRpcRequest request) {
-        log.info("RPC authenticate: username={}, tenantId={}", request.getUsername(), request.getTenantId());
-        try {
-            TokenResponse tokenResponse = authService.login(
-                LoginRequest.builder()
-                    .username(request.getUsername())
-                    .password(request.getPassword())
-                    .tenantId(request.getTenantId())
-                    .build()
-            );
+        return authenticateAsync(request).join();
+    }
 
-            return AuthResult.newBuilder()
-                .setSuccess(true)
-                .setMessage("登录成功")
-                .setUserId(tokenResponse.getUser().getId())
-                .setUsername(tokenResponse.getUser().getUsername())
-                .build();
-        } catch (BusinessException e) {
-            log.warn("Authentication failed: {}", e.getMessage());
-            return AuthResult.newBuilder()
-                .setSuccess(false)
-                .setMessage(e.getMessage())
-                .build();
-        } catch (Exception e) {
-            log.error("Authentication error", e);
-            return AuthResult.newBuilder()
-                .setSuccess(false)
-                .setMessage("认证失败")
+    /**
+     * Authenticate without blocking: the user lookup runs on the RPC executor, BCrypt on the password hashing executor
+     * 异步认证：用户查询在 RPC 线程池执行，密码校验在密码哈希线程池执行，期间不占用任何线程等待
+     */
+    @Override
+    public CompletableFuture<AuthResult> authenticateAsync(LoginRpcRequest request) {
+        log.info("RPC authenticate: username={}, tenantId={}", request.getUsername(), request.getTenantId());
+        LoginRequest loginRequest = LoginRequest.builder()
+                .username(request.getUsername())
+                .password(request.getPassword())
+                .tenantId(request.getTenantId())
+                // End-user IP forwarded by the calling service, if any; the caller's own address is not the user's
+                .clientIp(RpcContext.getServerAttachment().getAttachment(CLIENT_IP))
                 .build();
-        }
+        return rpcExecutors.supplyAsync(SERVICE, "authenticate", () -> authService.login(loginRequest))
+                .thenCompose(login -> login)
+                .thenApply(tokenResponse -> AuthResult.newBuilder()
+                        .setSuccess(true)
+                        .setMessage("登录成功")
+                        .setUserId(tokenResponse.getUser().getId())
+                        .setUsername(tokenResponse.getUser().getUsername())
+                        .build())
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (cause instanceof BusinessException businessException) {
+                        log.warn("Authentication failed: {}", cause.getMessage());
+                        return AuthResult.newBuilder()
+                                .setSuccess(false)
+                                .setMessage(cause.getMessage())
+                                .setRetryable(!DEFINITIVE_FAILURES.contains(businessException.getCode()))
+                                .build();
+                    }
+                    log.error("Authentication error", cause);
+                    return AuthResult.newBuilder()
+                            .setSuccess(false)
+                            .setMessage("认证失败")
+                            .setRetryable(true)
+                            .build();
+                });
     }
 
     @Override
     public UserRpcResponse getUserById(UserByIdRequest request) {
         log.info("RPC getUserById: userId={}, tenantId={}", request.getUserId(), request.getTenantId());
         try {
-            // Load user with roles and permissions using provided tenantId
-            cn.wanyj.auth.entity.User user = userMapper.findByIdWithRolesAndPermissions(
-                request.getUserId(),
-                request.getTenantId()
-            );
-
-            if (user == null || user.getStatus() == 0) {
+            // Roles and permissions come from the cache, only the user row is read
+            EffectiveAuthorities authorities = authorizationCache.get(request.getTenantId(), request.getUserId());
+            if (authorities == null || !authorities.isEnabled()) {
                 log.warn("User not found or disabled: userId={}, tenantId={}", request.getUserId(), request.getTenantId());
                 return UserRpcResponse.getDefaultInstance();
             }
 
+            cn.wanyj.auth.entity.User user = userMapper.findById(request.getUserId());
+
             // Verify user belongs to the specified tenant
-            if (!user.getTenantId().equals(request.getTenantId())) {
+            if (user == null || !user.getTenantId().equals(request.getTenantId())) {
                 log.warn("User {} does not belong to tenant {}", request.getUserId(), request.getTenantId());
                 return UserRpcResponse.getDefaultInstance();
             }
 
-            return convertToProtobuf(user);
+            return convertToProtobuf(user, authorities);
         } catch (Exception e) {
             log.error("Failed to get user by id: userId={}, tenantId={}",
                 request.getUserId(), request.getTenantId(), e);
@@ -98,6 +138,45 @@ public class AuthRpcServiceProtobufImpl extends DubboAuthRpcServiceProtobufTripl
         }
     }
 
+    @Override
+    public UserListResponse getUsersByIds(UsersByIdsRequest request) {
+        log.info("RPC getUsersByIds: count={}, tenantId={}", request.getUserIdsCount(), request.getTenantId());
+        try {
+            List<Long> userIds = request.getUserIdsList().stream().distinct().toList();
+            Set<String> fields = new HashSet<>(request.getFieldMask().getPathsList());
+            boolean all = fields.isEmpty();
+            boolean needAuthorities = all || fields.contains("roles") || fields.contains("permissions");
+
+            UserListResponse.Builder response = UserListResponse.newBuilder();
+            for (int from = 0; from < userIds.size(); from += MAX_BATCH_SIZE) {
+                List<Long> chunk = userIds.subList(from, Math.min(from + MAX_BATCH_SIZE, userIds.size()));
+
+                // One IN (...) query per chunk, disabled users are skipped like getUserById
+                Map<Long, cn.wanyj.auth.entity.User> found = userMapper.findByIds(chunk, request.getTenantId()).stream()
+                    .filter(u -> u.getStatus() != null && u.getStatus() != 0)
+                    .collect(Collectors.toMap(cn.wanyj.auth.entity.User::getId, u -> u));
+                // IN (...) returns rows in index order; answer in the order the ids were requested
+                List<cn.wanyj.auth.entity.User> users = chunk.stream()
+                    .map(found::get)
+                    .filter(Objects::nonNull)
+                    .toList();
+
+                // Roles and permissions come from the authorization cache and RBAC snapshot
+                Map<Long, EffectiveAuthorities> authorities = needAuthorities && !users.isEmpty()
+                    ? authorizationCache.getAll(request.getTenantId(), users)
+                    : Map.of();
+
+                for (cn.wanyj.auth.entity.User user : users) {
+                    response.addUsers(convertToProtobuf(user, authorities.get(user.getId()), fields));
+                }
+            }
+            return response.build();
+        } catch (Exception e) {
+            log.error("Failed to get users by ids: tenantId={}", request.getTenantId(), e);
+            return UserListResponse.getDefaultInstance();
+        }
+    }
+
     @Override
     public UserRpcResponse getUserByUsername(UserByUsernameRequest request) {
         log.info("RPC getUserByUsername: username={}, tenantId={}",
@@ -129,18 +208,13 @@ public class AuthRpcServiceProtobufImpl extends DubboAuthRpcServiceProtobufTripl
             request.getUserId(), request.getPermission(), request.getTenantId());
         try {
             // Use tenantId from request
-            cn.wanyj.auth.entity.User user = userMapper.findByIdWithRolesAndPermissions(
-                request.getUserId(),
-                request.getTenantId()
-            );
+            EffectiveAuthorities authorities = authorizationCache.get(request.getTenantId(), request.getUserId());
 
-            if (user == null || user.getStatus() == 0) {
+            if (authorities == null || !authorities.isEnabled()) {
                 return BoolValue.newBuilder().setValue(false).build();
             }
 
-            boolean hasPermission = user.getRoles().stream()
-                .flatMap(r -> r.getPermissions().stream())
-                .anyMatch(p -> p.getCode().equals(request.getPermission()));
+            boolean hasPermission = authorities.hasPermission(request.getPermission());
 
             return BoolValue.newBuilder().setValue(hasPermission).build();
         } catch (Exception e) {
@@ -155,17 +229,13 @@ public class AuthRpcServiceProtobufImpl extends DubboAuthRpcServiceProtobufTripl
             request.getUserId(), request.getRole(), request.getTenantId());
         try {
             // Use tenantId from request
-            cn.wanyj.auth.entity.User user = userMapper.findByIdWithRolesAndPermissions(
-                request.getUserId(),
-                request.getTenantId()
-            );
+            EffectiveAuthorities authorities = authorizationCache.get(request.getTenantId(), request.getUserId());
 
-            if (user == null || user.getStatus() == 0) {
+            if (authorities == null || !authorities.isEnabled()) {
                 return BoolValue.newBuilder().setValue(false).build();
             }
 
-            boolean hasRole = user.getRoles().stream()
-                .anyMatch(r -> r.getCode().equals(request.getRole()));
+            boolean hasRole = authorities.hasRole(request.getRole());
 
             return BoolValue.newBuilder().setValue(hasRole).build();
         } catch (Exception e) {
@@ -179,22 +249,15 @@ public class AuthRpcServiceProtobufImpl extends DubboAuthRpcServiceProtobufTripl
         log.info("RPC getUserPermissions: userId={}, tenantId={}", request.getUserId(), request.getTenantId());
         try {
             // Use tenantId from request
-            cn.wanyj.auth.entity.User user = userMapper.findByIdWithRolesAndPermissions(
-                request.getUserId(),
-                request.getTenantId()
-            );
+            EffectiveAuthorities authorities = authorizationCache.get(request.getTenantId(), request.getUserId());
 
-            if (user == null) {
+            if (authorities == null) {
                 log.warn("User not found: userId={}, tenantId={}", request.getUserId(), request.getTenantId());
                 return StringListResponse.getDefaultInstance();
             }
 
             return StringListResponse.newBuilder()
-                .addAllValues(user.getRoles().stream()
-                    .flatMap(r -> r.getPermissions().stream())
-                    .map(p -> p.getCode())
-                    .distinct()
-                    .collect(Collectors.toList()))
+                .addAllValues(authorities.getPermissions())
                 .build();
         } catch (Exception e) {
             log.error("Failed to get user permissions", e);
@@ -207,20 +270,15 @@ public class AuthRpcServiceProtobufImpl extends DubboAuthRpcServiceProtobufTripl
         log.info("RPC getUserRoles: userId={}, tenantId={}", request.getUserId(), request.getTenantId());
         try {
             // Use tenantId from request
-            cn.wanyj.auth.entity.User user = userMapper.findByIdWithRolesAndPermissions(
-                request.getUserId(),
-                request.getTenantId()
-            );
+            EffectiveAuthorities authorities = authorizationCache.get(request.getTenantId(), request.getUserId());
 
-            if (user == null) {
+            if (authorities == null) {
                 log.warn("User not found: userId={}, tenantId={}", request.getUserId(), request.getTenantId());
                 return StringListResponse.getDefaultInstance();
             }
 
             return StringListResponse.newBuilder()
-                .addAllValues(user.getRoles().stream()
-                    .map(r -> r.getCode())
-                    .collect(Collectors.toList()))
+                .addAllValues(authorities.getRoles())
                 .build();
         } catch (Exception e) {
             log.error("Failed to get user roles", e);
@@ -228,6 +286,107 @@ public class AuthRpcServiceProtobufImpl extends DubboAuthRpcServiceProtobufTripl
         }
     }
 
+    @Override
+    public BoolListResponse hasPermissions(PermissionsCheckRequest request) {
+        log.info("RPC hasPermissions: userId={}, permissions={}, tenantId={}",
+            request.getUserId(), request.getPermissionsCount(), request.getTenantId());
+        BoolListResponse.Builder response = BoolListResponse.newBuilder();
+        try {
+            EffectiveAuthorities authorities = authorizationCache.get(request.getTenantId(), request.getUserId());
+            boolean enabled = authorities != null && authorities.isEnabled();
+
+            for (String permission : request.getPermissionsList()) {
+                response.addValues(enabled && authorities.hasPermission(permission));
+            }
+            return response.build();
+        } catch (Exception e) {
+            log.error("Failed to check permissions", e);
+            return denyAll(request.getPermissionsCount());
+        }
+    }
+
+    @Override
+    public BoolListResponse checkAccess(AccessCheckRequest request) {
+        log.info("RPC checkAccess: checks={}, tenantId={}", request.getChecksCount(), request.getTenantId());
+        BoolListResponse.Builder response = BoolListResponse.newBuilder();
+        try {
+            // Resolve each distinct user once
+            Map<Long, Optional<EffectiveAuthorities>> resolved = new HashMap<>();
+
+            for (AccessCheck check : request.getChecksList()) {
+                EffectiveAuthorities authorities = resolved.computeIfAbsent(check.getUserId(),
+                        userId -> Optional.ofNullable(authorizationCache.get(request.getTenantId(), userId)))
+                    .orElse(null);
+                response.addValues(authorities != null
+                    && authorities.isEnabled()
+                    && authorities.hasPermission(check.getPermission()));
+            }
+            return response.build();
+        } catch (Exception e) {
+            log.error("Failed to check access", e);
+            return denyAll(request.getChecksCount());
+        }
+    }
+
+    // ==================== Async Triple methods ====================
+    // Triple dispatches to the *Async variants; the blocking bodies run on the RPC executor
+
+    @Override
+    public CompletableFuture<UserRpcResponse> getUserByIdAsync(UserByIdRequest request) {
+        return rpcExecutors.supplyAsync(SERVICE, "getUserById", () -> getUserById(request));
+    }
+
+    @Override
+    public CompletableFuture<UserListResponse> getUsersByIdsAsync(UsersByIdsRequest request) {
+        return rpcExecutors.supplyAsync(SERVICE, "getUsersByIds", () -> getUsersByIds(request));
+    }
+
+    @Override
+    public CompletableFuture<UserRpcResponse> getUserByUsernameAsync(UserByUsernameRequest request) {
+        return rpcExecutors.supplyAsync(SERVICE, "getUserByUsername", () -> getUserByUsername(request));
+    }
+
+    @Override
+    public CompletableFuture<BoolValue> hasPermissionAsync(PermissionCheckRequest request) {
+        return rpcExecutors.supplyAsync(SERVICE, "hasPermission", () -> hasPermission(request));
+    }
+
+    @Override
+    public CompletableFuture<BoolValue> hasRoleAsync(RoleCheckRequest request) {
+        return rpcExecutors.supplyAsync(SERVICE, "hasRole", () -> hasRole(request));
+    }
+
+    @Override
+    public CompletableFuture<StringListResponse> getUserPermissionsAsync(UserPermissionsRequest request) {
+        return rpcExecutors.supplyAsync(SERVICE, "getUserPermissions", () -> getUserPermissions(request));
+    }
+
+    @Override
+    public CompletableFuture<StringListResponse> getUserRolesAsync(UserRolesRequest request) {
+        return rpcExecutors.supplyAsync(SERVICE, "getUserRoles", () -> getUserRoles(request));
+    }
+
+    @Override
+    public CompletableFuture<BoolListResponse> hasPermissionsAsync(PermissionsCheckRequest request) {
+        return rpcExecutors.supplyAsync(SERVICE, "hasPermissions", () -> hasPermissions(request));
+    }
+
+    @Override
+    public CompletableFuture<BoolListResponse> checkAccessAsync(AccessCheckRequest request) {
+        return rpcExecutors.supplyAsync(SERVICE, "checkAccess", () -> checkAccess(request));
+    }
+
+    /**
+     * All-false response of the given size, so callers can still index results by request position
+     */
+    private BoolListResponse denyAll(int count) {
+        BoolListResponse.Builder response = BoolListResponse.newBuilder();
+        for (int i = 0; i < count; i++) {
+            response.addValues(false);
+        }
+        return response.build();
+    }
+
     private UserRpcResponse convertToProtobuf(UserResponse user) {
         return UserRpcResponse.newBuilder()
             .setId(user.getId())
@@ -244,6 +403,54 @@ public class AuthRpcServiceProtobufImpl extends DubboAuthRpcServiceProtobufTripl
             .build();
     }
 
+    private UserRpcResponse convertToProtobuf(cn.wanyj.auth.entity.User user, EffectiveAuthorities authorities) {
+        return UserRpcResponse.newBuilder()
+            .setId(user.getId())
+            .setUsername(user.getUsername())
+            .setEmail(user.getEmail() != null ? user.getEmail() : "")
+            .setPhone(user.getPhone() != null ? user.getPhone() : "")
+            .setNickname(user.getNickname() != null ? user.getNickname() : "")
+            .setAvatar(user.getAvatar() != null ? user.getAvatar() : "")
+            .setStatus(user.getStatus())
+            .addAllRoles(authorities.getRoles())
+            .addAllPermissions(authorities.getPermissions())
+            .build();
+    }
+
+    /**
+     * Convert with field mask, empty mask populates all fields
+     */
+    private UserRpcResponse convertToProtobuf(cn.wanyj.auth.entity.User user, EffectiveAuthorities authorities,
+                                              Set<String> fields) {
+        boolean all = fields.isEmpty();
+        UserRpcResponse.Builder builder = UserRpcResponse.newBuilder().setId(user.getId());
+        if ((all || fields.contains("username")) && user.getUsername() != null) {
+            builder.setUsername(user.getUsername());
+        }
+        if ((all || fields.contains("email")) && user.getEmail() != null) {
+            builder.setEmail(user.getEmail());
+        }
+        if ((all || fields.contains("phone")) && user.getPhone() != null) {
+            builder.setPhone(user.getPhone());
+        }
+        if ((all || fields.contains("nickname")) && user.getNickname() != null) {
+            builder.setNickname(user.getNickname());
+        }
+        if ((all || fields.contains("avatar")) && user.getAvatar() != null) {
+            builder.setAvatar(user.getAvatar());
+        }
+        if (all || fields.contains("status")) {
+            builder.setStatus(user.getStatus());
+        }
+        if (authorities != null && (all || fields.contains("roles"))) {
+            builder.addAllRoles(authorities.getRoles());
+        }
+        if (authorities != null && (all || fields.contains("permissions"))) {
+            builder.addAllPermissions(authorities.getPermissions());
+        }
+        return builder.build();
+    }
+
     private UserRpcResponse convertToProtobuf(cn.wanyj.auth.entity.User user) {
         return UserRpcResponse.newBuilder()
             .setId(user.getId())
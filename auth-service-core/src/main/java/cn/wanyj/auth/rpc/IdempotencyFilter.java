@@ -0,0 +1,110 @@
+package cn.wanyj.auth.rpc;
+
+import cn.wanyj.auth.api.protobuf.AuthResult;
+import com.google.protobuf.MessageLite;
+import org.apache.dubbo.common.constants.CommonConstants;
+import org.apache.dubbo.common.extension.Activate;
+import org.apache.dubbo.rpc.AppResponse;
+import org.apache.dubbo.rpc.AsyncRpcResult;
+import org.apache.dubbo.rpc.Filter;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Idempotency Filter - RPC 幂等过滤器
+ * 消费端在附件 idempotency-key 中携带幂等键时，超时重试不会重复执行 BCrypt 校验或重复签发令牌：
+ * 相同键的调用加入正在进行的执行，或直接返回最近的成功结果；标记为可重试的失败结果不保留
+ * 幂等键与请求内容摘要共同组成登记键，不同请求误用同一个键时不会拿到他人的结果
+ * @author wanyj
+ */
+@Activate(group = CommonConstants.PROVIDER)
+public class IdempotencyFilter implements Filter {
+
+    /**
+     * Attachment carrying the client idempotency key (Triple headers are lower-case)
+     * 幂等键附件名
+     */
+    public static final String IDEMPOTENCY_KEY = "idempotency-key";
+
+    private IdempotentCalls idempotentCalls;
+
+    /**
+     * Injected by Dubbo from the Spring context
+     * 由 Dubbo 从 Spring 容器注入
+     */
+    public void setIdempotentCalls(IdempotentCalls idempotentCalls) {
+        this.idempotentCalls = idempotentCalls;
+    }
+
+    @Override
+    public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+        String idempotencyKey = invocation.getAttachment(IDEMPOTENCY_KEY);
+        if (idempotencyKey == null || idempotencyKey.isBlank() || idempotentCalls == null) {
+            return invoker.invoke(invocation);
+        }
+
+        String key = invoker.getInterface().getSimpleName() + "." + invocation.getMethodName()
+                + ":" + idempotencyKey + ":" + digest(invocation.getArguments());
+        CompletableFuture<AppResponse> response = idempotentCalls
+                .execute(key, () -> invokeAsync(invoker, invocation), IdempotencyFilter::isDefinitive)
+                .handle((value, error) -> error == null ? new AppResponse(value) : new AppResponse(unwrap(error)));
+        return new AsyncRpcResult(response, invocation);
+    }
+
+    private CompletableFuture<Object> invokeAsync(Invoker<?> invoker, Invocation invocation) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        invoker.invoke(invocation).whenCompleteWithContext((result, error) -> {
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else if (result.hasException()) {
+                future.completeExceptionally(result.getException());
+            } else {
+                future.complete(result.getValue());
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Whether a result may be replayed to retries; transient failures are returned as values but must run again
+     * 结果是否可重放：限流、过载、服务不可用等暂时性失败虽以正常值返回，重试时仍须重新执行
+     */
+    static boolean isDefinitive(Object value) {
+        return !(value instanceof AuthResult result && result.getRetryable());
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * SHA-256 of the request arguments
+     * 请求参数摘要
+     */
+    private static String digest(Object[] arguments) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            if (arguments != null) {
+                for (Object argument : arguments) {
+                    if (argument instanceof MessageLite message) {
+                        md.update(message.toByteArray());
+                    } else {
+                        md.update(String.valueOf(argument).getBytes(StandardCharsets.UTF_8));
+                    }
+                }
+            }
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(md.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
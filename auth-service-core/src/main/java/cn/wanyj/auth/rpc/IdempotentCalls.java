@@ -0,0 +1,83 @@
+package cn.wanyj.auth.rpc;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Idempotent Calls - RPC 幂等调用登记
+ * 以幂等键登记调用结果：相同键的并发调用共享同一次执行，已完成的成功结果在短时间内直接返回
+ * 失败的调用以及调用方判定为暂时性失败的结果不保留，重试会重新执行
+ * @author wanyj
+ */
+@Component
+public class IdempotentCalls {
+
+    private final Cache<String, CompletableFuture<Object>> calls;
+    private final Counter replayed;
+
+    public IdempotentCalls(MeterRegistry meterRegistry,
+                           @Value("${rpc.idempotency.max-size:100000}") long maxSize,
+                           @Value("${rpc.idempotency.ttl:30000}") long ttl) {
+        this.calls = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+                .build();
+        this.replayed = Counter.builder("rpc.idempotency.replayed")
+                .description("RPC calls answered from an in-flight or recent execution with the same idempotency key")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Execute a call once per key
+     * 按键执行调用：键已存在时返回已有（进行中或已完成）的结果，否则执行并登记
+     *
+     * @param key      幂等键（已包含服务、方法与请求摘要）
+     * @param call     实际调用，返回异步结果
+     * @param remember 结果是否为确定结果；否则只共享给进行中的调用，不供之后的重试重放
+     */
+    public CompletableFuture<Object> execute(String key, Supplier<CompletableFuture<Object>> call,
+                                             Predicate<Object> remember) {
+        ConcurrentMap<String, CompletableFuture<Object>> map = calls.asMap();
+        CompletableFuture<Object> registered = new CompletableFuture<>();
+        CompletableFuture<Object> existing = map.putIfAbsent(key, registered);
+        if (existing != null) {
+            replayed.increment();
+            return existing;
+        }
+
+        // The call runs outside the map so a slow invocation never holds a cache lock
+        CompletableFuture<Object> result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            map.remove(key, registered);
+            registered.completeExceptionally(e);
+            return registered;
+        }
+        result.whenComplete((value, error) -> {
+            if (error != null) {
+                map.remove(key, registered);
+                registered.completeExceptionally(error);
+            } else if (!remember.test(value)) {
+                // Transient failure reported as a value: a retry must run the call again
+                map.remove(key, registered);
+                registered.complete(value);
+            } else {
+                // Re-writing the entry restarts its TTL from completion rather than from the first call
+                map.replace(key, registered, registered);
+                registered.complete(value);
+            }
+        });
+        return registered;
+    }
+}
@@ -0,0 +1,110 @@
+package cn.wanyj.auth.rpc;
+
+import cn.wanyj.auth.config.RpcExecutorProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * RPC Executors - RPC 异步执行线程池
+ * 异步 Triple 方法在此线程池上执行数据库与 Redis 调用，Dubbo 提供者线程立即返回，不在 I/O 期间被占用
+ * 可按服务或方法配置隔离线程池（舱壁），例如 authenticate 的 BCrypt 计算不会占满 parseToken 使用的线程
+ * 队列有界，满载时拒绝新任务，由调用方快速失败而不是排队等待超时
+ * 方法体仍是阻塞调用（JDBC 与 RedisTemplate），这些线程池即为数据库/Redis 执行器；
+ * Redis 未改用响应式客户端：JDBC 本身需要线程，令牌黑名单、权限与租户等热点路径已由本地缓存承担
+ * @author wanyj
+ */
+@Slf4j
+@Component
+public class RpcExecutors {
+
+    private static final String DEFAULT_POOL = "default";
+
+    private final ExecutorService defaultExecutor;
+
+    // pool name -> executor
+    private final Map<String, ExecutorService> executors = new LinkedHashMap<>();
+
+    // "Service" or "Service.method" -> executor
+    private final Map<String, ExecutorService> routes = new HashMap<>();
+
+    public RpcExecutors(RpcExecutorProperties properties, MeterRegistry meterRegistry) {
+        this.defaultExecutor = createExecutor(DEFAULT_POOL, properties.getExecutor(), meterRegistry);
+        executors.put(DEFAULT_POOL, defaultExecutor);
+
+        properties.getBulkheads().forEach((name, bulkhead) -> {
+            ExecutorService executor = createExecutor(name, bulkhead, meterRegistry);
+            executors.put(name, executor);
+            for (String method : bulkhead.getMethods()) {
+                if (routes.put(method, executor) != null) {
+                    throw new IllegalStateException("RPC method assigned to more than one bulkhead: " + method);
+                }
+            }
+            log.info("RPC bulkhead '{}' ({} threads, queue {}) serves {}",
+                    name, bulkhead.getMaxSize(), bulkhead.getQueueCapacity(), bulkhead.getMethods());
+        });
+    }
+
+    /**
+     * Run a blocking RPC body off the provider thread
+     * 在方法对应的线程池上执行阻塞的 RPC 方法体：优先匹配方法，其次匹配服务，否则使用默认线程池
+     *
+     * @param service 服务名，如 AuthRpcServiceProtobuf
+     * @param method  方法名，如 authenticate
+     * @throws RejectedExecutionException 线程池队列已满
+     */
+    public <T> CompletableFuture<T> supplyAsync(String service, String method, Supplier<T> task) {
+        ExecutorService executor = routes.get(service + "." + method);
+        if (executor == null) {
+            executor = routes.getOrDefault(service, defaultExecutor);
+        }
+        return CompletableFuture.supplyAsync(task, executor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executors.values().forEach(ExecutorService::shutdown);
+        try {
+            for (ExecutorService executor : executors.values()) {
+                if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                    executor.shutdownNow();
+                }
+            }
+        } catch (InterruptedException e) {
+            executors.values().forEach(ExecutorService::shutdownNow);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private ExecutorService createExecutor(String name, RpcExecutorProperties.Pool pool, MeterRegistry meterRegistry) {
+        Counter rejected = Counter.builder("rpc.bulkhead.rejected")
+                .tag("bulkhead", name)
+                .description("RPC calls rejected because the bulkhead queue was full")
+                .register(meterRegistry);
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(pool.getCoreSize(), pool.getMaxSize(), 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(pool.getQueueCapacity()),
+                new CustomizableThreadFactory("rpc-" + name + "-"),
+                (runnable, rejectingPool) -> {
+                    rejected.increment();
+                    throw new RejectedExecutionException("RPC bulkhead '" + name + "' is full");
+                });
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "rpc", Tags.of("bulkhead", name));
+    }
+}
@@ -4,17 +4,23 @@ import cn.wanyj.auth.api.protobuf.*;
 import cn.wanyj.auth.entity.User;
 import cn.wanyj.auth.mapper.UserMapper;
 import cn.wanyj.auth.security.JwtTokenProvider;
+import cn.wanyj.auth.security.ParsedToken;
+import cn.wanyj.auth.security.SecurityUtils;
+import cn.wanyj.auth.security.TenantRegistry;
+import cn.wanyj.auth.security.VerifiedTokenCache;
 import cn.wanyj.auth.service.TokenService;
-import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.dubbo.config.annotation.DubboService;
+import org.springframework.beans.factory.annotation.Value;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
  * 令牌服务 RPC 实现 - Protobuf IDL 模式
  * 使用 Protobuf 定义的消息类型进行序列化
+ * 同时提供异步实现，阻塞的数据库/Redis 调用在 {@link RpcExecutors} 上执行
  *
  * @author wanyj
  */
@@ -28,9 +34,20 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class TokenRpcServiceProtobufImpl extends DubboTokenRpcServiceProtobufTriple.TokenRpcServiceProtobufImplBase {
 
+    private static final String SERVICE = "TokenRpcServiceProtobuf";
+
     private final TokenService tokenService;
     private final JwtTokenProvider jwtTokenProvider;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TenantRegistry tenantRegistry;
     private final UserMapper userMapper;
+    private final RpcExecutors rpcExecutors;
+
+    /**
+     * 为 true 时 parseToken 直接使用已验证的令牌声明，仅在授权变更后回源数据库
+     */
+    @Value("${jwt.parse-token.trust-claims:false}")
+    private boolean trustClaims;
 
     @Override
     public TokenRpcResponse generateToken(TokenGenerationRequest request) {
@@ -80,26 +97,54 @@ public class TokenRpcServiceProtobufImpl extends DubboTokenRpcServiceProtobufTri
         try {
             String tokenValue = token.getValue();
 
-            if (!jwtTokenProvider.validateAccessToken(tokenValue)) {
+            // Verify signature and parse claims (hot tokens hit the local cache)
+            ParsedToken parsedToken = verifiedTokenCache.parseAccessToken(tokenValue);
+            if (parsedToken == null) {
                 log.warn("Token is invalid");
                 return TokenValidationResult.newBuilder()
                     .setValid(false)
                     .build();
             }
 
-            // Extract tenant_id from JWT token
-            Claims claims = jwtTokenProvider.getClaimsFromToken(tokenValue);
-            Long tenantId = claims.get("tenant_id", Long.class);
+            Long tenantId = parsedToken.getTenantId();
 
-            // Check blacklist
-            if (tokenService.isBlacklisted(tenantId, tokenValue)) {
-                log.warn("Token is blacklisted: tenant={}", tenantId);
+            // Check blacklist (legacy tokens without jti may still have full-token entries)
+            boolean blacklisted = tokenService.isBlacklisted(tenantId, parsedToken.getTokenId())
+                    || (parsedToken.isLegacy() && tokenService.isLegacyBlacklisted(tenantId, tokenValue))
+                    || tokenService.isRevoked(tenantId, parsedToken.getUserId(), parsedToken.getIssuedAt());
+            if (blacklisted) {
+                log.warn("Token is blacklisted or revoked: tenant={}", tenantId);
                 return TokenValidationResult.newBuilder()
                     .setValid(false)
                     .build();
             }
 
-            Long userId = jwtTokenProvider.getUserIdFromToken(tokenValue);
+            // Disabled or expired tenant
+            if (!tenantRegistry.isValid(tenantId)) {
+                log.warn("Token rejected, tenant is disabled or expired: tenant={}", tenantId);
+                return TokenValidationResult.newBuilder()
+                    .setValid(false)
+                    .build();
+            }
+
+            Long userId = parsedToken.getUserId();
+            long expiresAt = parsedToken.getExpiresAt().toEpochMilli();
+
+            // Trust-claims mode: disabled users are caught by the revocation watermark above,
+            // so answer from the verified claims unless roles/permissions changed since issuance
+            if (trustClaims && !tokenService.isClaimsStale(tenantId, userId, parsedToken.getIssuedAt())) {
+                return TokenValidationResult.newBuilder()
+                    .setValid(true)
+                    .setUserId(userId)
+                    .setUsername(parsedToken.getUsername())
+                    .setTenantId(tenantId)
+                    .addAllRoles(parsedToken.getRoles().stream()
+                        .map(SecurityUtils::toRoleAuthority)
+                        .collect(Collectors.toList()))
+                    .addAllPermissions(parsedToken.getPermissions())
+                    .setExpiresAt(expiresAt)
+                    .build();
+            }
 
             // Load user with roles and permissions
             User user = userMapper.findByIdWithRolesAndPermissions(userId, tenantId);
@@ -110,15 +155,14 @@ public class TokenRpcServiceProtobufImpl extends DubboTokenRpcServiceProtobufTri
                     .build();
             }
 
-            long expiresAt = jwtTokenProvider.getAccessTokenExpirationSeconds() * 1000 + System.currentTimeMillis();
-
             return TokenValidationResult.newBuilder()
                 .setValid(true)
                 .setUserId(user.getId())
                 .setUsername(user.getUsername())
                 .setTenantId(tenantId)
+                // Same form as the trust-claims answer above
                 .addAllRoles(user.getRoles().stream()
-                    .map(r -> r.getCode())
+                    .map(r -> SecurityUtils.toRoleAuthority(r.getCode()))
                     .collect(Collectors.toList()))
                 .addAllPermissions(user.getRoles().stream()
                     .flatMap(r -> r.getPermissions().stream())
@@ -153,4 +197,22 @@ public class TokenRpcServiceProtobufImpl extends DubboTokenRpcServiceProtobufTri
         }
         return Empty.getDefaultInstance();
     }
+
+    // ==================== Async Triple methods ====================
+    // Triple dispatches to the *Async variants; the blocking bodies run on the RPC executor
+
+    @Override
+    public CompletableFuture<TokenRpcResponse> generateTokenAsync(TokenGenerationRequest request) {
+        return rpcExecutors.supplyAsync(SERVICE, "generateToken", () -> generateToken(request));
+    }
+
+    @Override
+    public CompletableFuture<TokenValidationResult> parseTokenAsync(StringValue request) {
+        return rpcExecutors.supplyAsync(SERVICE, "parseToken", () -> parseToken(request));
+    }
+
+    @Override
+    public CompletableFuture<Empty> revokeAllTokensAsync(Int64Value request) {
+        return rpcExecutors.supplyAsync(SERVICE, "revokeAllTokens", () -> revokeAllTokens(request));
+    }
 }
@@ -0,0 +1,223 @@
+package cn.wanyj.auth.security;
+
+import cn.wanyj.auth.entity.User;
+import cn.wanyj.auth.entity.UserRole;
+import cn.wanyj.auth.mapper.UserMapper;
+import cn.wanyj.auth.mapper.UserRoleMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Authorization Cache - 用户有效权限缓存
+ * 以 (tenantId, userId) 为键缓存用户状态与角色ID，结合租户的 {@link RbacSnapshot} 得到有效角色与权限，授权 RPC 无需执行多表关联查询
+ * 用户角色分配或状态变更时精确失效该用户，并通过 Redis pub/sub 通知其他节点；角色与权限定义的变更由 {@link RbacEngine} 处理
+ * @author wanyj
+ */
+@Slf4j
+@Component
+public class AuthorizationCache implements MessageListener {
+
+    /**
+     * Pub/sub channel for invalidations: {tenant_id}:{user_id},{user_id}... or {tenant_id}:*
+     * 失效广播频道
+     */
+    public static final String CHANNEL = "channel:authz-invalidation";
+
+    private static final String ALL_USERS = "*";
+
+    private final UserMapper userMapper;
+    private final UserRoleMapper userRoleMapper;
+    private final RbacEngine rbacEngine;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Cache<String, RoleBinding> cache;
+
+    public AuthorizationCache(UserMapper userMapper,
+                              UserRoleMapper userRoleMapper,
+                              RbacEngine rbacEngine,
+                              StringRedisTemplate stringRedisTemplate,
+                              RedisMessageListenerContainer listenerContainer,
+                              MeterRegistry meterRegistry,
+                              @Value("${authz.cache.max-size:100000}") long maxSize,
+                              @Value("${authz.cache.ttl:600000}") long ttl) {
+        this.userMapper = userMapper;
+        this.userRoleMapper = userRoleMapper;
+        this.rbacEngine = rbacEngine;
+        this.stringRedisTemplate = stringRedisTemplate;
+        // The TTL bounds staleness if a pub/sub message is lost
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "authorization");
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * Get effective roles and permissions of a user
+     * 获取用户有效角色与权限，用户不存在时返回 null
+     */
+    public EffectiveAuthorities get(Long tenantId, Long userId) {
+        RoleBinding binding = cache.get(key(tenantId, userId), k -> load(tenantId, userId));
+        if (binding == null) {
+            return null;
+        }
+        return new EffectiveAuthorities(userId, tenantId, binding.enabled(), binding.roleIds(),
+                rbacEngine.snapshot(tenantId));
+    }
+
+    /**
+     * Get effective roles and permissions of already loaded users
+     * 批量获取已加载用户的有效角色与权限，未命中的用户通过一次 user_role 查询加载
+     *
+     * @return userId -> authorities
+     */
+    public Map<Long, EffectiveAuthorities> getAll(Long tenantId, Collection<User> users) {
+        Map<String, User> usersByKey = new HashMap<>();
+        for (User user : users) {
+            usersByKey.put(key(tenantId, user.getId()), user);
+        }
+
+        Map<String, RoleBinding> bindings = cache.getAll(usersByKey.keySet(), missingKeys -> {
+            List<Long> missingIds = missingKeys.stream()
+                    .map(k -> usersByKey.get(k).getId())
+                    .toList();
+            Map<Long, Set<Long>> roleIds = new HashMap<>();
+            for (UserRole userRole : userRoleMapper.findByUserIds(missingIds)) {
+                roleIds.computeIfAbsent(userRole.getUserId(), id -> new HashSet<>()).add(userRole.getRoleId());
+            }
+            Map<String, RoleBinding> loaded = new HashMap<>();
+            for (String k : missingKeys) {
+                User user = usersByKey.get(k);
+                loaded.put(k, new RoleBinding(user.getStatus() != null && user.getStatus() != 0,
+                        Set.copyOf(roleIds.getOrDefault(user.getId(), Set.of()))));
+            }
+            return loaded;
+        });
+
+        RbacSnapshot snapshot = rbacEngine.snapshot(tenantId);
+        Map<Long, EffectiveAuthorities> result = new HashMap<>();
+        bindings.forEach((k, binding) -> {
+            Long userId = usersByKey.get(k).getId();
+            result.put(userId, new EffectiveAuthorities(userId, tenantId, binding.enabled(), binding.roleIds(), snapshot));
+        });
+        return result;
+    }
+
+    /**
+     * Invalidate a user on all nodes
+     * 失效指定用户（所有节点）
+     */
+    public void invalidateUser(Long tenantId, Long userId) {
+        invalidateUsers(tenantId, Set.of(userId));
+    }
+
+    /**
+     * Invalidate users on all nodes
+     * 失效多个用户（所有节点）
+     */
+    public void invalidateUsers(Long tenantId, Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        String userList = userIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+        afterCommit(tenantId + ":" + userList);
+    }
+
+    /**
+     * Invalidate all users of a tenant on all nodes
+     * 失效租户下所有用户（所有节点）
+     */
+    public void invalidateTenant(Long tenantId) {
+        afterCommit(tenantId + ":" + ALL_USERS);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        evict(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    private RoleBinding load(Long tenantId, Long userId) {
+        User user = userMapper.findById(userId);
+        if (user == null || !tenantId.equals(user.getTenantId())) {
+            return null;
+        }
+        Set<Long> roleIds = Set.copyOf(userMapper.findRoleIdsByUserId(userId));
+        return new RoleBinding(user.getStatus() != null && user.getStatus() != 0, roleIds);
+    }
+
+    /**
+     * Evict once the surrounding transaction has committed, so a concurrent reader cannot re-cache the old rows
+     * 事务提交后再失效，避免并发读取把旧数据重新写入缓存
+     */
+    private void afterCommit(String invalidation) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(invalidation);
+                }
+            });
+        } else {
+            publish(invalidation);
+        }
+    }
+
+    private void publish(String invalidation) {
+        evict(invalidation);
+        try {
+            stringRedisTemplate.convertAndSend(CHANNEL, invalidation);
+        } catch (Exception e) {
+            // Other nodes converge once their cached entries expire
+            log.warn("Failed to publish authorization invalidation: {}", e.getMessage());
+        }
+    }
+
+    private void evict(String invalidation) {
+        int separator = invalidation.indexOf(':');
+        String tenantId = invalidation.substring(0, separator);
+        String users = invalidation.substring(separator + 1);
+        if (ALL_USERS.equals(users)) {
+            String prefix = tenantId + ":";
+            cache.asMap().keySet().removeIf(k -> k.startsWith(prefix));
+        } else {
+            for (String userId : users.split(",")) {
+                cache.invalidate(tenantId + ":" + userId);
+            }
+        }
+        log.debug("Authorization cache invalidated: {}", invalidation);
+    }
+
+    private static String key(Long tenantId, Long userId) {
+        return tenantId + ":" + userId;
+    }
+
+    /**
+     * Cached per-user state: status and role ids
+     * 缓存的用户状态与角色ID
+     */
+    private record RoleBinding(boolean enabled, Set<Long> roleIds) {
+    }
+}
@@ -0,0 +1,127 @@
+package cn.wanyj.auth.security;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Blacklist Bloom Filter - 令牌黑名单布隆过滤器
+ * 每个节点在内存中维护已撤销令牌的布隆过滤器，否定结果直接跳过 Redis，只有可能命中时才查询 Redis
+ * 节点间通过 Redis pub/sub 同步新增条目，并定期从 Redis 对账；过滤器按令牌有效期窗口轮换以清除过期条目
+ * @author wanyj
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BlacklistBloomFilter implements MessageListener {
+
+    /**
+     * Pub/sub channel for newly blacklisted keys
+     * 新增黑名单条目的广播频道
+     */
+    public static final String CHANNEL = "channel:token-blacklist";
+
+    // Matches blacklist:{tenant_id}:... keys written by TokenServiceImpl
+    private static final String SCAN_PATTERN = "blacklist:*";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    @Value("${jwt.blacklist-filter.expected-insertions:100000}")
+    private int expectedInsertions;
+
+    @Value("${jwt.blacklist-filter.false-positive-rate:0.001}")
+    private double falsePositiveRate;
+
+    // Two generations: entries live at most one window (access token lifetime) after the rotation that retires them
+    private volatile BloomFilter current;
+    private volatile BloomFilter previous;
+
+    // Until the first reconciliation completes every lookup falls back to Redis
+    private volatile boolean ready = false;
+
+    @PostConstruct
+    public void init() {
+        this.current = new BloomFilter(expectedInsertions, falsePositiveRate);
+        this.previous = new BloomFilter(expectedInsertions, falsePositiveRate);
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * Add key locally and broadcast it to other nodes
+     * 本地添加并广播给其他节点
+     */
+    public void publish(String key) {
+        current.put(key);
+        try {
+            stringRedisTemplate.convertAndSend(CHANNEL, key);
+        } catch (Exception e) {
+            // Other nodes will pick it up at the next reconciliation
+            log.warn("Failed to publish blacklist entry: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Check if key might be blacklisted
+     * 返回 false 表示一定不在黑名单中；返回 true 时需要查询 Redis 确认
+     */
+    public boolean mightContain(String key) {
+        if (!ready) {
+            return true;
+        }
+        return current.mightContain(key) || previous.mightContain(key);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        current.put(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reconcile with Redis
+     * 定期从 Redis 对账，补齐 pub/sub 期间丢失的条目（启动时立即执行一次）
+     */
+    @Scheduled(fixedDelayString = "${jwt.blacklist-filter.reconcile-interval:60000}")
+    public void reconcile() {
+        long count = 0;
+        ScanOptions options = ScanOptions.scanOptions().match(SCAN_PATTERN).count(1000).build();
+        try (Cursor<String> cursor = stringRedisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                current.put(cursor.next());
+                count++;
+            }
+            if (!ready) {
+                ready = true;
+                log.info("Blacklist bloom filter ready: {} entries loaded", count);
+            } else {
+                log.debug("Blacklist bloom filter reconciled: {} entries", count);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to reconcile blacklist bloom filter: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Rotate filter generations
+     * 按令牌有效期窗口轮换，旧代过滤器丢弃后其中已过期的条目随之清除
+     */
+    @Scheduled(fixedRateString = "${jwt.access-token-expiration:3600000}",
+            initialDelayString = "${jwt.access-token-expiration:3600000}")
+    public void rotate() {
+        previous = current;
+        current = new BloomFilter(expectedInsertions, falsePositiveRate);
+        log.debug("Blacklist bloom filter rotated");
+    }
+}
@@ -0,0 +1,66 @@
+package cn.wanyj.auth.security;
+
+import lombok.Getter;
+
+import java.util.Set;
+
+/**
+ * Effective Authorities - 用户有效角色与权限
+ * 由用户的角色ID与租户当前的 {@link RbacSnapshot} 组合而成，权限判断为位图查找
+ * @author wanyj
+ */
+public class EffectiveAuthorities {
+
+    @Getter
+    private final Long userId;
+
+    @Getter
+    private final Long tenantId;
+
+    @Getter
+    private final boolean enabled;
+
+    private final Set<Long> roleIds;
+
+    private final RbacSnapshot snapshot;
+
+    public EffectiveAuthorities(Long userId, Long tenantId, boolean enabled, Set<Long> roleIds, RbacSnapshot snapshot) {
+        this.userId = userId;
+        this.tenantId = tenantId;
+        this.enabled = enabled;
+        this.roleIds = roleIds;
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Check if user has role
+     * 是否拥有角色
+     */
+    public boolean hasRole(String role) {
+        return snapshot.hasRole(roleIds, role);
+    }
+
+    /**
+     * Check if user has permission
+     * 是否拥有权限
+     */
+    public boolean hasPermission(String permission) {
+        return snapshot.hasPermission(roleIds, permission);
+    }
+
+    /**
+     * Get role codes (with ROLE_ prefix)
+     * 获取角色编码（含 ROLE_ 前缀）
+     */
+    public Set<String> getRoles() {
+        return snapshot.getRoleCodes(roleIds);
+    }
+
+    /**
+     * Get effective permission codes
+     * 获取有效权限编码
+     */
+    public Set<String> getPermissions() {
+        return snapshot.getPermissionCodes(roleIds);
+    }
+}
@@ -2,7 +2,7 @@ package cn.wanyj.auth.security;
 
 import cn.wanyj.auth.exception.ErrorCode;
 import cn.wanyj.auth.service.TokenService;
-import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -33,8 +33,9 @@ import java.util.List;
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtTokenProvider jwtTokenProvider;
+    private final VerifiedTokenCache verifiedTokenCache;
     private final TokenService tokenService;
+    private final TenantRegistry tenantRegistry;
 
     private static final String AUTHORIZATION_HEADER = "Authorization";
     private static final String BEARER_PREFIX = "Bearer ";
@@ -64,29 +65,29 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             TokenValidationResult result = validateToken(token);
 
             if (result.isValid()) {
-                // Get claims from token to extract tenant_id, user roles and permissions
-                Claims claims = jwtTokenProvider.getClaimsFromToken(token);
-                Long tenantId = claims.get("tenant_id", Long.class);
-                Long userId = Long.parseLong(claims.getSubject());
-
-                // Check if token is blacklisted
-                if (tokenService.isBlacklisted(tenantId, token)) {
-                    log.warn("Token is blacklisted: tenant={}, token:{}...", tenantId, token.substring(0, Math.min(20, token.length())));
+                ParsedToken parsedToken = result.getParsedToken();
+                Long tenantId = parsedToken.getTenantId();
+                Long userId = parsedToken.getUserId();
+
+                // Check if token is blacklisted (legacy tokens without jti may still have full-token entries)
+                if (tokenService.isBlacklisted(tenantId, parsedToken.getTokenId())
+                        || (parsedToken.isLegacy() && tokenService.isLegacyBlacklisted(tenantId, token))) {
+                    log.warn("Token is blacklisted: tenant={}, tokenId={}", tenantId, parsedToken.getTokenId());
                     request.setAttribute(TOKEN_ERROR_ATTRIBUTE, ErrorCode.TOKEN_BLACKLISTED);
+                } else if (tokenService.isRevoked(tenantId, userId, parsedToken.getIssuedAt())) {
+                    // All tokens of the user or tenant have been revoked since issuance
+                    log.warn("Token is revoked by watermark: tenant={}, user={}, tokenId={}",
+                            tenantId, userId, parsedToken.getTokenId());
+                    request.setAttribute(TOKEN_ERROR_ATTRIBUTE, ErrorCode.TOKEN_BLACKLISTED);
+                } else if (!tenantRegistry.isValid(tenantId)) {
+                    // Disabled or expired tenant (checked in memory on every request)
+                    log.warn("Token rejected, tenant is disabled or expired: tenant={}", tenantId);
+                    request.setAttribute(TOKEN_ERROR_ATTRIBUTE, ErrorCode.INVALID_TENANT);
                 } else {
-                    // Extract roles and permissions from JWT claims
-                    // Note: JWT stores these as List, not Set
-                    List<String> roles = claims.get("roles", List.class);
-                    List<String> permissions = claims.get("permissions", List.class);
-
-                    // Build GrantedAuthority list
+                    // Build GrantedAuthority list from roles and permissions parsed from JWT
                     List<GrantedAuthority> authorities = new ArrayList<>();
-                    if (roles != null) {
-                        roles.forEach(role -> authorities.add(new SimpleGrantedAuthority("ROLE_" + role)));
-                    }
-                    if (permissions != null) {
-                        permissions.forEach(permission -> authorities.add(new SimpleGrantedAuthority(permission)));
-                    }
+                    parsedToken.getRoles().forEach(role -> authorities.add(new SimpleGrantedAuthority("ROLE_" + role)));
+                    parsedToken.getPermissions().forEach(permission -> authorities.add(new SimpleGrantedAuthority(permission)));
 
                     // Create authentication object with user ID, tenant ID and authorities
                     // Store both userId and tenantId in the principal using an array
@@ -129,26 +130,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     /**
      * Validate token and return detailed result
-     * 验证令牌并返回详细结果
+     * 验证令牌并返回详细结果（已验证过的令牌直接命中缓存）
      */
     private TokenValidationResult validateToken(String token) {
         try {
-            if (jwtTokenProvider.validateAccessToken(token)) {
-                return TokenValidationResult.valid();
+            ParsedToken parsedToken = verifiedTokenCache.parseToken(token);
+            if (parsedToken.isAccessToken()) {
+                return TokenValidationResult.valid(parsedToken);
             } else {
                 return TokenValidationResult.invalid(ErrorCode.TOKEN_INVALID);
             }
+        } catch (ExpiredJwtException e) {
+            log.debug("Token expired: {}", e.getMessage());
+            return TokenValidationResult.invalid(ErrorCode.TOKEN_EXPIRED);
         } catch (Exception e) {
-            String message = e.getMessage();
-            log.debug("Token validation exception: {}", message);
-
-            if (message != null && message.toLowerCase().contains("expired")) {
-                return TokenValidationResult.invalid(ErrorCode.TOKEN_EXPIRED);
-            } else if (message != null && message.toLowerCase().contains("malformed")) {
-                return TokenValidationResult.invalid(ErrorCode.TOKEN_INVALID);
-            } else {
-                return TokenValidationResult.invalid(ErrorCode.TOKEN_INVALID);
-            }
+            log.debug("Token validation exception: {}", e.getMessage());
+            return TokenValidationResult.invalid(ErrorCode.TOKEN_INVALID);
         }
     }
 
@@ -157,24 +154,28 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
      * 令牌验证结果持有者
      */
     private static class TokenValidationResult {
-        private final boolean valid;
+        private final ParsedToken parsedToken;
         private final ErrorCode errorCode;
 
-        private TokenValidationResult(boolean valid, ErrorCode errorCode) {
-            this.valid = valid;
+        private TokenValidationResult(ParsedToken parsedToken, ErrorCode errorCode) {
+            this.parsedToken = parsedToken;
             this.errorCode = errorCode;
         }
 
-        public static TokenValidationResult valid() {
-            return new TokenValidationResult(true, null);
+        public static TokenValidationResult valid(ParsedToken parsedToken) {
+            return new TokenValidationResult(parsedToken, null);
         }
 
         public static TokenValidationResult invalid(ErrorCode errorCode) {
-            return new TokenValidationResult(false, errorCode);
+            return new TokenValidationResult(null, errorCode);
         }
 
         public boolean isValid() {
-            return valid;
+            return parsedToken != null;
+        }
+
+        public ParsedToken getParsedToken() {
+            return parsedToken;
         }
 
         public ErrorCode getErrorCode() {
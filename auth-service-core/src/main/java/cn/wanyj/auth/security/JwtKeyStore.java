@@ -0,0 +1,248 @@
+package cn.wanyj.auth.security;
+
+import cn.wanyj.auth.config.JwtSigningProperties;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import javax.crypto.SecretKey;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * JWT Key Store - JWT密钥管理
+ * 负责签名密钥的加载、按 kid 定位验证密钥，以及生成 JWKS
+ * @author wanyj
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JwtKeyStore extends LocatorAdapter<Key> {
+
+    private static final String ALG_HS256 = "HS256";
+    private static final String ALG_ES256 = "ES256";
+    private static final String ALG_EDDSA = "EdDSA";
+
+    private final JwtSigningProperties properties;
+
+    @Value("${jwt.secret:Yo3bOIzQhkFc+lRvAEj90Hvx89IzgEC5FduXDPCTiB0=}")
+    private String secret;
+
+    private SecretKey hmacKey;
+
+    // Asymmetric signing key, null in HS256 mode
+    private String activeKeyId;
+    private PrivateKey signingKey;
+    private SignatureAlgorithm signatureAlgorithm;
+
+    // kid -> public key, all configured keys are accepted for verification
+    private final Map<String, PublicKey> verificationKeys = new LinkedHashMap<>();
+
+    private Map<String, Object> jwkSet;
+    private String jwkSetETag;
+
+    @PostConstruct
+    public void init() {
+        // Ensure the secret key is at least 256 bits (32 bytes) for HS256
+        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length < 32) {
+            // If key is too short, pad it or generate a warning
+            log.warn("JWT secret key is less than 256 bits. Consider using a longer secret key.");
+        }
+        this.hmacKey = Keys.hmacShaKeyFor(keyBytes);
+
+        String algorithm = properties.getAlgorithm();
+        if (!ALG_HS256.equals(algorithm) && !ALG_ES256.equals(algorithm) && !ALG_EDDSA.equals(algorithm)) {
+            throw new IllegalStateException("Unsupported jwt.signing.algorithm: " + algorithm);
+        }
+
+        // Load verification keys; in HS256 mode configured keys still verify tokens issued before a rollback
+        boolean asymmetric = !ALG_HS256.equals(algorithm);
+        for (JwtSigningProperties.KeyEntry entry : properties.getKeys()) {
+            PublicKey publicKey = decodePublicKey(entry.getPublicKey());
+            verificationKeys.put(entry.getKid(), publicKey);
+            if (asymmetric && entry.getKid().equals(properties.getActiveKeyId()) && entry.getPrivateKey() != null) {
+                // Fail at startup rather than on the first token issued
+                PrivateKey privateKey = decodePrivateKey(entry.getPrivateKey());
+                requireMatchingKey(entry.getKid(), publicKey, algorithm);
+                requireMatchingKey(entry.getKid(), privateKey, algorithm);
+                activeKeyId = entry.getKid();
+                signingKey = privateKey;
+            }
+        }
+
+        if (asymmetric) {
+            signatureAlgorithm = ALG_ES256.equals(algorithm) ? Jwts.SIG.ES256 : Jwts.SIG.EdDSA;
+            if (signingKey == null) {
+                // No configured key pair: tokens will not survive restarts and other nodes cannot verify them
+                log.warn("No private key configured for jwt.signing.active-key-id, generating an ephemeral {} key pair", algorithm);
+                KeyPair keyPair = generateKeyPair(algorithm);
+                activeKeyId = UUID.randomUUID().toString();
+                signingKey = keyPair.getPrivate();
+                verificationKeys.put(activeKeyId, keyPair.getPublic());
+            }
+            log.info("JWT signing with {} key: kid={}", algorithm, activeKeyId);
+        }
+
+        buildJwkSet();
+    }
+
+    /**
+     * Sign token with the active key
+     * 使用当前签发密钥签名，非对称模式下写入 kid 头部
+     */
+    public JwtBuilder signWith(JwtBuilder builder) {
+        if (signingKey == null) {
+            return builder.signWith(hmacKey);
+        }
+        return builder.header().keyId(activeKeyId).and()
+                .signWith(signingKey, signatureAlgorithm);
+    }
+
+    /**
+     * Locate verification key by kid
+     * 根据令牌头部的 kid 定位验证密钥，无 kid 的令牌按 HS256 验证
+     */
+    @Override
+    protected Key locate(JwsHeader header) {
+        String kid = header.getKeyId();
+        if (kid == null) {
+            if (signingKey == null || properties.isAcceptHmac()) {
+                return hmacKey;
+            }
+            throw new UnsupportedJwtException("HMAC signed tokens are no longer accepted");
+        }
+
+        PublicKey key = verificationKeys.get(kid);
+        if (key == null) {
+            throw new UnsupportedJwtException("Unknown signing key id: " + kid);
+        }
+        return key;
+    }
+
+    /**
+     * Get JWKS (public keys only)
+     * 获取 JWKS（仅包含公钥）
+     */
+    public Map<String, Object> getJwkSet() {
+        return jwkSet;
+    }
+
+    /**
+     * Get JWKS ETag
+     * 获取 JWKS 的 ETag，密钥不变时保持不变
+     */
+    public String getJwkSetETag() {
+        return jwkSetETag;
+    }
+
+    private void buildJwkSet() {
+        List<Map<String, Object>> keys = new ArrayList<>();
+        ByteArrayOutputStream fingerprint = new ByteArrayOutputStream();
+
+        verificationKeys.forEach((kid, publicKey) -> {
+            Map<String, ?> jwk = Jwks.builder()
+                    .key(publicKey)
+                    .keyId(kid)
+                    .algorithm(isEdDsaKey(publicKey) ? ALG_EDDSA : ALG_ES256)
+                    .publicKeyUse("sig")
+                    .build();
+            keys.add(new LinkedHashMap<>(jwk));
+            fingerprint.writeBytes(kid.getBytes(StandardCharsets.UTF_8));
+            fingerprint.writeBytes(publicKey.getEncoded());
+        });
+
+        this.jwkSet = Map.of("keys", Collections.unmodifiableList(keys));
+        this.jwkSetETag = "\"" + DigestUtils.md5DigestAsHex(fingerprint.toByteArray()) + "\"";
+    }
+
+    /**
+     * Check that the signing key fits the algorithm: an Ed25519 key for EdDSA, an EC P-256 key for ES256
+     * 校验签发密钥与算法匹配，不匹配时拒绝启动
+     */
+    private void requireMatchingKey(String kid, Key key, String algorithm) {
+        boolean matches = ALG_EDDSA.equals(algorithm)
+                ? isEdDsaKey(key)
+                : key instanceof ECKey ecKey && ecKey.getParams().getCurve().getField().getFieldSize() == 256;
+        if (!matches) {
+            throw new IllegalStateException("JWT signing key " + kid + " (" + key.getAlgorithm()
+                    + ") does not match jwt.signing.algorithm=" + algorithm);
+        }
+    }
+
+    private boolean isEdDsaKey(Key key) {
+        return "EdDSA".equals(key.getAlgorithm()) || "Ed25519".equals(key.getAlgorithm());
+    }
+
+    private KeyPair generateKeyPair(String algorithm) {
+        try {
+            if (ALG_ES256.equals(algorithm)) {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+                generator.initialize(new ECGenParameterSpec("secp256r1"));
+                return generator.generateKeyPair();
+            }
+            return KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to generate " + algorithm + " key pair", e);
+        }
+    }
+
+    private PublicKey decodePublicKey(String pem) {
+        X509EncodedKeySpec spec = new X509EncodedKeySpec(decodePem(pem));
+        for (String keyAlgorithm : List.of("EC", "Ed25519")) {
+            try {
+                return KeyFactory.getInstance(keyAlgorithm).generatePublic(spec);
+            } catch (GeneralSecurityException ignored) {
+                // Try next key algorithm
+            }
+        }
+        throw new IllegalStateException("Unsupported JWT public key, expected EC P-256 or Ed25519");
+    }
+
+    private PrivateKey decodePrivateKey(String pem) {
+        PKCS8EncodedKeySpec spec = new PKCS8EncodedKeySpec(decodePem(pem));
+        for (String keyAlgorithm : List.of("EC", "Ed25519")) {
+            try {
+                return KeyFactory.getInstance(keyAlgorithm).generatePrivate(spec);
+            } catch (GeneralSecurityException ignored) {
+                // Try next key algorithm
+            }
+        }
+        throw new IllegalStateException("Unsupported JWT private key, expected EC P-256 or Ed25519");
+    }
+
+    private byte[] decodePem(String pem) {
+        String base64 = pem.replaceAll("-----(BEGIN|END) [A-Z ]+-----", "")
+                .replaceAll("\\s", "");
+        return Base64.getDecoder().decode(base64);
+    }
+}
@@ -4,16 +4,21 @@ import cn.wanyj.auth.entity.Permission;
 import cn.wanyj.auth.entity.Role;
 import cn.wanyj.auth.entity.User;
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
+import java.util.List;
 import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 /**
@@ -23,28 +28,31 @@ import java.util.stream.Collectors;
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class JwtTokenProvider {
 
-    @Value("${jwt.secret:Yo3bOIzQhkFc+lRvAEj90Hvx89IzgEC5FduXDPCTiB0=}")
-    private String secret;
-
     @Value("${jwt.access-token-expiration:3600000}") // 1 hour in milliseconds
     private Long accessTokenExpiration;
 
     @Value("${jwt.refresh-token-expiration:604800000}") // 7 days in milliseconds
     private Long refreshTokenExpiration;
 
-    private SecretKey key;
+    private static final String LEGACY_TOKEN_ID_PREFIX = "sha256:";
+
+    // Issue time in epoch milliseconds; iat has second precision, too coarse for revocation watermarks
+    private static final String ISSUED_AT_MILLIS = "iat_ms";
+
+    private final JwtKeyStore jwtKeyStore;
+
+    // Parser is thread-safe and immutable, build once and reuse
+    private JwtParser parser;
 
     @PostConstruct
     public void init() {
-        // Ensure the secret key is at least 256 bits (32 bytes) for HS256
-        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        if (keyBytes.length < 32) {
-            // If key is too short, pad it or generate a warning
-            log.warn("JWT secret key is less than 256 bits. Consider using a longer secret key.");
-        }
-        this.key = Keys.hmacShaKeyFor(keyBytes);
+        // Verification key is located by the kid header (HS256 tokens have no kid)
+        this.parser = Jwts.parser()
+                .keyLocator(jwtKeyStore)
+                .build();
     }
 
     /**
@@ -52,12 +60,8 @@ public class JwtTokenProvider {
      * 生成访问令牌
      */
     public String generateAccessToken(User user) {
-        Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + accessTokenExpiration);
-
-        // Remove ROLE_ prefix when storing in JWT (filter will add it back)
-        Set<String> roles = user.getRoles().stream()
-                .map(role -> role.getCode().replace("ROLE_", ""))
+        Set<String> roleCodes = user.getRoles().stream()
+                .map(Role::getCode)
                 .collect(Collectors.toSet());
 
         Set<String> permissions = user.getRoles().stream()
@@ -65,17 +69,39 @@ public class JwtTokenProvider {
                 .map(Permission::getCode)
                 .collect(Collectors.toSet());
 
-        return Jwts.builder()
+        return generateAccessToken(user, roleCodes, permissions);
+    }
+
+    /**
+     * Generate Access Token from already resolved authorities
+     * 使用已解析的角色与权限生成访问令牌（如来自授权缓存），user 只需基本字段
+     */
+    public String generateAccessToken(User user, EffectiveAuthorities authorities) {
+        return generateAccessToken(user, authorities.getRoles(), authorities.getPermissions());
+    }
+
+    private String generateAccessToken(User user, Set<String> roleCodes, Set<String> permissions) {
+        Date now = new Date();
+        Date expiryDate = new Date(now.getTime() + accessTokenExpiration);
+
+        // Remove ROLE_ prefix when storing in JWT (filter will add it back)
+        Set<String> roles = roleCodes.stream()
+                .map(SecurityUtils::stripRolePrefix)
+                .collect(Collectors.toSet());
+
+        JwtBuilder builder = Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(String.valueOf(user.getId()))
                 .claim("username", user.getUsername())
                 .claim("email", user.getEmail())
                 .claim("tenant_id", user.getTenantId())
                 .claim("roles", roles)
                 .claim("permissions", permissions)
+                .claim(ISSUED_AT_MILLIS, now.getTime())
                 .issuedAt(now)
-                .expiration(expiryDate)
-                .signWith(key)
-                .compact();
+                .expiration(expiryDate);
+
+        return jwtKeyStore.signWith(builder).compact();
     }
 
     /**
@@ -86,69 +112,75 @@ public class JwtTokenProvider {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + refreshTokenExpiration);
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(String.valueOf(user.getId()))
-                .claim("type", "refresh")
+                .claim("type", ParsedToken.TYPE_REFRESH)
                 .claim("tenant_id", user.getTenantId())
+                .claim(ISSUED_AT_MILLIS, now.getTime())
                 .issuedAt(now)
-                .expiration(expiryDate)
-                .signWith(key)
-                .compact();
+                .expiration(expiryDate);
+
+        return jwtKeyStore.signWith(builder).compact();
     }
 
     /**
-     * Get user ID from token
-     * 从令牌中获取用户ID
+     * Parse and verify token once
+     * 解析并验证令牌（签名只验证一次），返回不可变的令牌信息
+     *
+     * @throws JwtException 令牌无效、签名错误或已过期
+     * @throws IllegalArgumentException 令牌为空
      */
-    public Long getUserIdFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-
-        return Long.parseLong(claims.getSubject());
+    public ParsedToken parseToken(String token) {
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+
+        // Tokens issued before jti was introduced are identified by a fixed-width digest
+        String tokenId = claims.getId();
+        boolean legacy = tokenId == null;
+        if (legacy) {
+            tokenId = LEGACY_TOKEN_ID_PREFIX + digest(token);
+        }
+
+        return ParsedToken.builder()
+                .tokenId(tokenId)
+                .legacy(legacy)
+                .userId(Long.parseLong(claims.getSubject()))
+                .tenantId(claims.get("tenant_id", Long.class))
+                .type(claims.get("type", String.class))
+                .username(claims.get("username", String.class))
+                .email(claims.get("email", String.class))
+                .roles(getStringList(claims, "roles"))
+                .permissions(getStringList(claims, "permissions"))
+                .issuedAt(getIssuedAt(claims))
+                .expiresAt(claims.getExpiration().toInstant())
+                .build();
     }
 
     /**
-     * Validate access token
-     * 验证访问令牌
+     * Parse access token, return null if invalid
+     * 解析访问令牌，无效或为刷新令牌时返回 null
      */
-    public boolean validateAccessToken(String token) {
+    public ParsedToken parseAccessToken(String token) {
         try {
-            // Parse and validate token, get claims in one call
-            Claims claims = Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-
-            // Check if it's not a refresh token
-            String type = claims.get("type", String.class);
-            return !"refresh".equals(type);
+            ParsedToken parsed = parseToken(token);
+            return parsed.isAccessToken() ? parsed : null;
         } catch (JwtException | IllegalArgumentException e) {
             log.error("Invalid JWT token: {}", e.getMessage());
-            return false;
+            return null;
         }
     }
 
     /**
-     * Validate refresh token
-     * 验证刷新令牌
+     * Parse refresh token, return null if invalid
+     * 解析刷新令牌，无效或为访问令牌时返回 null
      */
-    public boolean validateRefreshToken(String token) {
+    public ParsedToken parseRefreshToken(String token) {
         try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-
-            String type = claims.get("type", String.class);
-            return "refresh".equals(type);
+            ParsedToken parsed = parseToken(token);
+            return parsed.isRefreshToken() ? parsed : null;
         } catch (JwtException | IllegalArgumentException e) {
             log.error("Invalid refresh token: {}", e.getMessage());
-            return false;
+            return null;
         }
     }
 
@@ -161,44 +193,45 @@ public class JwtTokenProvider {
     }
 
     /**
-     * Get token remaining TTL in seconds
-     * 获取 token 的剩余有效期（秒）
+     * SHA-256 digest of token (Base64, no padding)
+     * 令牌摘要，用于以固定长度标识令牌
      */
-    public long getTokenRemainingTTL(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-
-        Date expiration = claims.getExpiration();
-        Date now = new Date();
-        return java.util.concurrent.TimeUnit.MILLISECONDS.toSeconds(expiration.getTime() - now.getTime());
+    public static String digest(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("Token must not be empty");
+        }
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] hash = md.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 
     /**
-     * Get Claims from token
-     * 从令牌中获取Claims（包含用户信息、角色、权限等）
+     * Issue time at millisecond precision; tokens issued without iat_ms fall back to the second-precision iat
+     * 签发时间：优先使用毫秒精度的 iat_ms，旧令牌退回到秒级的 iat
      */
-    public Claims getClaimsFromToken(String token) {
-        return Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    private Instant getIssuedAt(Claims claims) {
+        Long issuedAtMillis = claims.get(ISSUED_AT_MILLIS, Long.class);
+        if (issuedAtMillis != null) {
+            return Instant.ofEpochMilli(issuedAtMillis);
+        }
+        return claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null;
     }
 
     /**
-     * Get tenant ID from token
-     * 从令牌中获取租户ID
+     * Read a JSON array claim as an immutable string list
+     * JWT 中的集合声明反序列化为 List
      */
-    public Long getTenantIdFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-
-        return claims.get("tenant_id", Long.class);
+    private List<String> getStringList(Claims claims, String name) {
+        List<?> values = claims.get(name, List.class);
+        if (values == null) {
+            return List.of();
+        }
+        return values.stream()
+                .map(String::valueOf)
+                .toList();
     }
 }
@@ -0,0 +1,157 @@
+package cn.wanyj.auth.security;
+
+import cn.wanyj.auth.mapper.LoginIdentifierMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Login Identifier Filter - 已占用登录标识的租户级布隆过滤器
+ * 每个租户一份，包含该租户全部规范化的用户名、邮箱与手机号；否定结果表示未被占用，可用性检查无需查询数据库
+ * 新注册的标识经 {@link LoginNegativeCache#CHANNEL} 同步到其他节点；过滤器加载期间收到的标识先暂存，加载完成后补入
+ * Redis pub/sub 最多投递一次：消息丢失（如订阅连接断开）时，其他节点最长在 rebuild-interval 内把该标识判为未占用
+ * 因此否定结果只用于预判和可用性提示，注册时唯一键约束才是最终依据
+ * 删除的用户只会留下误报，过滤器到期后按当前数据重建
+ * @author wanyj
+ */
+@Slf4j
+@Component
+public class LoginIdentifierFilter implements MessageListener {
+
+    private final LoginIdentifierMapper loginIdentifierMapper;
+    private final Cache<Long, BloomFilter> filters;
+
+    // tenant id -> filter being loaded, until a lookup sees it in the cache
+    private final ConcurrentMap<Long, Loading> loading = new ConcurrentHashMap<>();
+
+    @Value("${registration.identifier-filter.min-capacity:1024}")
+    private int minCapacity;
+
+    @Value("${registration.identifier-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    public LoginIdentifierFilter(LoginIdentifierMapper loginIdentifierMapper,
+                                 RedisMessageListenerContainer listenerContainer,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${registration.identifier-filter.max-tenants:1000}") long maxTenants,
+                                 @Value("${registration.identifier-filter.rebuild-interval:3600000}") long rebuildInterval) {
+        this.loginIdentifierMapper = loginIdentifierMapper;
+        // Rebuilding drops deleted identifiers and resizes filters of growing tenants
+        this.filters = Caffeine.newBuilder()
+                .maximumSize(maxTenants)
+                .expireAfterWrite(rebuildInterval, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, filters, "login-identifier-filter");
+        listenerContainer.addMessageListener(this, new ChannelTopic(LoginNegativeCache.CHANNEL));
+    }
+
+    /**
+     * Whether the identifier might already be taken in the tenant
+     * 返回 false 表示未被占用（pub/sub 消息丢失时可能滞后，见类注释）；返回 true 时需要查询数据库确认
+     */
+    public boolean mightBeTaken(Long tenantId, String normalizedIdentifier) {
+        BloomFilter filter = filters.get(tenantId, this::load);
+        // The cached filter is visible now, so add() no longer needs the loading entry
+        loading.computeIfPresent(tenantId, (id, entry) -> entry.filter == filter ? null : entry);
+        return filter.mightContain(normalizedIdentifier);
+    }
+
+    /**
+     * Mark identifiers as taken on this node (other nodes learn them from the negative cache channel)
+     * 在本节点标记标识已占用；在事务提交前调用，回滚时只多出误报
+     */
+    public void add(Long tenantId, Collection<String> normalizedIdentifiers) {
+        BloomFilter filter = filters.getIfPresent(tenantId);
+        if (filter == null) {
+            // Still loading: the query may have missed these identifiers
+            Loading entry = loading.get(tenantId);
+            if (entry != null) {
+                entry.add(normalizedIdentifiers);
+                return;
+            }
+            // Not loading, or a lookup published the filter and dropped its entry in between
+            filter = filters.getIfPresent(tenantId);
+        }
+        if (filter != null) {
+            normalizedIdentifiers.forEach(filter::put);
+        }
+    }
+
+    /**
+     * Drop the filter of a deleted tenant
+     * 租户删除后丢弃其过滤器
+     */
+    public void invalidateTenant(Long tenantId) {
+        filters.invalidate(tenantId);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        // {tenant_id}:{normalized_identifier}
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf(':');
+        if (separator > 0) {
+            add(Long.valueOf(body.substring(0, separator)), List.of(body.substring(separator + 1)));
+        }
+    }
+
+    private BloomFilter load(Long tenantId) {
+        // Registered before the query so identifiers committed while it runs are kept
+        Loading entry = new Loading();
+        loading.put(tenantId, entry);
+        List<String> identifiers;
+        try {
+            identifiers = loginIdentifierMapper.findNormalizedValuesByTenantId(tenantId);
+        } catch (RuntimeException e) {
+            loading.remove(tenantId, entry);
+            throw e;
+        }
+        // Room for the tenant to double before the next rebuild
+        BloomFilter filter = new BloomFilter(Math.max(minCapacity, identifiers.size() * 2), falsePositiveRate);
+        identifiers.forEach(filter::put);
+        entry.complete(filter);
+        log.debug("Loaded login identifier filter for tenant {}: {} identifiers", tenantId, identifiers.size());
+        return filter;
+    }
+
+    /**
+     * A filter being loaded: identifiers received meanwhile are buffered, then forwarded to the built filter
+     * 加载中的过滤器：加载期间收到的标识先暂存，过滤器建好后补入，之后直接写入
+     */
+    private static final class Loading {
+
+        private final List<String> received = new ArrayList<>();
+        private volatile BloomFilter filter;
+
+        synchronized void add(Collection<String> normalizedIdentifiers) {
+            if (filter != null) {
+                normalizedIdentifiers.forEach(filter::put);
+            } else {
+                received.addAll(normalizedIdentifiers);
+            }
+        }
+
+        synchronized void complete(BloomFilter loaded) {
+            received.forEach(loaded::put);
+            received.clear();
+            filter = loaded;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package cn.wanyj.auth.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Login Negative Cache - 未知登录标识缓存
+ * 记录短时间内查无此人的 (tenantId, 登录标识)，重复的未知用户名登录不再查询数据库
+ * 新用户注册后通过 Redis pub/sub 在所有节点失效对应标识
+ * @author wanyj
+ */
+@Slf4j
+@Component
+public class LoginNegativeCache implements MessageListener {
+
+    /**
+     * Pub/sub channel for identifiers that now exist: {tenant_id}:{normalized_identifier}
+     * 标识已存在的广播频道
+     */
+    public static final String CHANNEL = "channel:login-identifier-created";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Cache<String, Boolean> unknown;
+
+    public LoginNegativeCache(StringRedisTemplate stringRedisTemplate,
+                              RedisMessageListenerContainer listenerContainer,
+                              MeterRegistry meterRegistry,
+                              @Value("${login.negative-cache.max-size:100000}") long maxSize,
+                              @Value("${login.negative-cache.ttl:60000}") long ttl) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        // The TTL bounds how long a lost invalidation can hide a newly registered user
+        this.unknown = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, unknown, "login-negative");
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * Whether the identifier was recently found not to exist
+     * 标识近期是否查无此人
+     */
+    public boolean isUnknown(Long tenantId, String normalizedIdentifier) {
+        return unknown.getIfPresent(key(tenantId, normalizedIdentifier)) != null;
+    }
+
+    /**
+     * Remember an identifier that does not exist
+     * 记录查无此人的标识
+     */
+    public void markUnknown(Long tenantId, String normalizedIdentifier) {
+        unknown.put(key(tenantId, normalizedIdentifier), Boolean.TRUE);
+    }
+
+    /**
+     * Forget identifiers that now exist, on all nodes, once the transaction has committed
+     * 标识已被注册：事务提交后在所有节点失效
+     */
+    public void invalidate(Long tenantId, Collection<String> normalizedIdentifiers) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    normalizedIdentifiers.forEach(identifier -> publish(key(tenantId, identifier)));
+                }
+            });
+        } else {
+            normalizedIdentifiers.forEach(identifier -> publish(key(tenantId, identifier)));
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        unknown.invalidate(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    private void publish(String key) {
+        unknown.invalidate(key);
+        try {
+            stringRedisTemplate.convertAndSend(CHANNEL, key);
+        } catch (Exception e) {
+            // Other nodes converge once their entries expire
+            log.warn("Failed to publish login identifier invalidation: {}", e.getMessage());
+        }
+    }
+
+    private static String key(Long tenantId, String normalizedIdentifier) {
+        return tenantId + ":" + normalizedIdentifier;
+    }
+}
@@ -0,0 +1,271 @@
+package cn.wanyj.auth.security;
+
+import cn.wanyj.auth.exception.BusinessException;
+import cn.wanyj.auth.exception.ErrorCode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Login Rate Limiter - 登录分级限流
+ * 第一级：每个节点按 (登录标识, 客户端IP) 与客户端IP维护本地令牌桶，请求洪峰在本节点直接拒绝，不访问 Redis
+ * 第二级：Redis 滑动窗口统计失败次数，跨节点生效：(租户, 登录标识, 客户端IP) 与客户端IP 超限时拒绝；
+ * 只按 (租户, 登录标识) 统计的失败次数阈值宽松得多，超过后仅逐次延迟，不拒绝，任何人都无法靠故意输错密码锁定他人账号
+ * 两级都在数据库查询与密码校验之前执行；Redis 不可用时第二级放行；客户端IP未知时不做按IP的限流
+ * @author wanyj
+ */
+@Slf4j
+@Component
+public class LoginRateLimiter {
+
+    private static final String ATTEMPT_KEY_PREFIX = "login_failures:attempt:";
+    private static final String IDENTIFIER_KEY_PREFIX = "login_failures:identifier:";
+    private static final String IP_KEY_PREFIX = "login_failures:ip:";
+
+    // First slow-down step; doubles with every further failure
+    private static final long BASE_DELAY_MILLIS = 250;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Cache<String, TokenBucket> buckets;
+    private final Counter rejected;
+
+    @Value("${login.rate-limit.local-permits-per-second:5}")
+    private double permitsPerSecond;
+
+    @Value("${login.rate-limit.local-burst:10}")
+    private int burst;
+
+    @Value("${login.rate-limit.window:900000}")
+    private long window;
+
+    @Value("${login.rate-limit.max-failures:5}")
+    private int maxFailures;
+
+    @Value("${login.rate-limit.identifier-slowdown-failures:20}")
+    private int identifierSlowdownFailures;
+
+    @Value("${login.rate-limit.identifier-max-delay:5000}")
+    private long identifierMaxDelay;
+
+    @Value("${login.rate-limit.ip-max-failures:50}")
+    private int ipMaxFailures;
+
+    @Value("${login.rate-limit.client-ip-enabled:true}")
+    private boolean clientIpEnabled;
+
+    public LoginRateLimiter(StringRedisTemplate stringRedisTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${login.rate-limit.local-max-keys:100000}") long maxKeys) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        // Idle buckets are full again after burst / rate seconds, so they can simply expire
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(1, TimeUnit.MINUTES)
+                .build();
+        this.rejected = Counter.builder("login.rate-limit.rejected")
+                .description("Login attempts rejected before password verification")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reject the attempt if either tier is exhausted, otherwise return how long to slow it down
+     * 登录前检查，任一级超限时抛出 {@link BusinessException}（TOO_MANY_REQUESTS）
+     *
+     * @param clientIp 客户端IP，未知时为 null（只按登录标识延迟，不拒绝）
+     * @return 校验密码前应等待的毫秒数，0 表示无需等待
+     */
+    public long check(Long tenantId, String normalizedIdentifier, String clientIp) {
+        String ip = trustedIp(clientIp);
+        String identifierKey = identifierKey(tenantId, normalizedIdentifier);
+        String attemptKey = ip != null ? attemptKey(tenantId, normalizedIdentifier, ip) : null;
+        String ipKey = ip != null ? IP_KEY_PREFIX + ip : null;
+
+        // Tier 1: local token buckets (per identifier only when the client is unknown)
+        boolean acquired = ip != null
+                ? tryAcquire(attemptKey) && tryAcquire(ipKey)
+                : tryAcquire(identifierKey);
+        if (!acquired) {
+            reject(tenantId, normalizedIdentifier, ip);
+        }
+
+        // Tier 2: failures within the sliding window, across all nodes
+        long windowStart = System.currentTimeMillis() - window;
+        try {
+            List<Object> counts = stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                    ops.opsForZSet().count(identifierKey, windowStart, Double.POSITIVE_INFINITY);
+                    if (ip != null) {
+                        ops.opsForZSet().count(attemptKey, windowStart, Double.POSITIVE_INFINITY);
+                        ops.opsForZSet().count(ipKey, windowStart, Double.POSITIVE_INFINITY);
+                    }
+                    return null;
+                }
+            });
+            if (ip != null && (count(counts, 1) >= maxFailures || count(counts, 2) >= ipMaxFailures)) {
+                reject(tenantId, normalizedIdentifier, ip);
+            }
+            return delay(count(counts, 0));
+        } catch (DataAccessException e) {
+            log.warn("Login rate limit check skipped: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Record a failed attempt (unknown identifier or wrong password)
+     * 记录一次登录失败
+     */
+    public void recordFailure(Long tenantId, String normalizedIdentifier, String clientIp) {
+        String ip = trustedIp(clientIp);
+        List<String> keys = new ArrayList<>(3);
+        keys.add(identifierKey(tenantId, normalizedIdentifier));
+        if (ip != null) {
+            keys.add(attemptKey(tenantId, normalizedIdentifier, ip));
+            keys.add(IP_KEY_PREFIX + ip);
+        }
+        long now = System.currentTimeMillis();
+        String member = now + "-" + ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE);
+        try {
+            stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                    for (String key : keys) {
+                        ops.opsForZSet().add(key, member, now);
+                        ops.opsForZSet().removeRangeByScore(key, 0, now - window);
+                        ops.expire(key, window, TimeUnit.MILLISECONDS);
+                    }
+                    return null;
+                }
+            });
+        } catch (DataAccessException e) {
+            log.warn("Failed to record login failure: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Clear the identifier's failures after a successful login (the IP window is kept)
+     * 登录成功后清除该登录标识的失败记录（IP 的失败记录保留）
+     */
+    public void reset(Long tenantId, String normalizedIdentifier, String clientIp) {
+        String ip = trustedIp(clientIp);
+        List<String> keys = new ArrayList<>(2);
+        keys.add(identifierKey(tenantId, normalizedIdentifier));
+        if (ip != null) {
+            keys.add(attemptKey(tenantId, normalizedIdentifier, ip));
+        }
+        try {
+            stringRedisTemplate.delete(keys);
+        } catch (DataAccessException e) {
+            log.warn("Failed to reset login failures: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Per-client check for unauthenticated lookups such as username availability
+     * 未认证查询接口按客户端IP限流（本地令牌桶与IP失败窗口），客户端IP未知时不限流
+     */
+    public void checkClient(String clientIp) {
+        String ip = trustedIp(clientIp);
+        if (ip == null) {
+            return;
+        }
+        String ipKey = IP_KEY_PREFIX + ip;
+        if (!tryAcquire(ipKey)) {
+            reject(null, null, ip);
+        }
+        try {
+            Long failures = stringRedisTemplate.opsForZSet()
+                    .count(ipKey, System.currentTimeMillis() - window, Double.POSITIVE_INFINITY);
+            if (failures != null && failures >= ipMaxFailures) {
+                reject(null, null, ip);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Client rate limit check skipped: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Delay for an identifier with the given failures from all clients: none up to the threshold, then doubling
+     * 按登录标识统计的失败次数超过阈值后，每次尝试的延迟从 250ms 起逐次翻倍，不超过上限
+     */
+    private long delay(long identifierFailures) {
+        long excess = identifierFailures - identifierSlowdownFailures;
+        if (excess < 0) {
+            return 0;
+        }
+        return Math.min(identifierMaxDelay, BASE_DELAY_MILLIS << Math.min(excess, 20));
+    }
+
+    private String trustedIp(String clientIp) {
+        return clientIpEnabled && clientIp != null && !clientIp.isBlank() ? clientIp : null;
+    }
+
+    private static String identifierKey(Long tenantId, String normalizedIdentifier) {
+        return IDENTIFIER_KEY_PREFIX + tenantId + ":" + normalizedIdentifier;
+    }
+
+    private static String attemptKey(Long tenantId, String normalizedIdentifier, String ip) {
+        return ATTEMPT_KEY_PREFIX + tenantId + ":" + normalizedIdentifier + ":" + ip;
+    }
+
+    private boolean tryAcquire(String key) {
+        return buckets.get(key, k -> new TokenBucket(burst, permitsPerSecond)).tryAcquire();
+    }
+
+    private void reject(Long tenantId, String normalizedIdentifier, String clientIp) {
+        rejected.increment();
+        log.warn("Login rate limited: tenant={}, identifier={}, ip={}", tenantId, normalizedIdentifier, clientIp);
+        throw new BusinessException(ErrorCode.TOO_MANY_REQUESTS);
+    }
+
+    private static long count(List<Object> counts, int index) {
+        return index < counts.size() && counts.get(index) instanceof Long count ? count : 0L;
+    }
+
+    /**
+     * Token bucket - 本地令牌桶
+     */
+    private static final class TokenBucket {
+
+        private final int capacity;
+        private final double permitsPerNano;
+        private double tokens;
+        private long refilledAt;
+
+        private TokenBucket(int capacity, double permitsPerSecond) {
+            this.capacity = capacity;
+            this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.tokens = capacity;
+            this.refilledAt = System.nanoTime();
+        }
+
+        synchronized boolean tryAcquire() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * permitsPerNano);
+            refilledAt = now;
+            if (tokens < 1) {
+                return false;
+            }
+            tokens--;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package cn.wanyj.auth.security;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsed Token - 已验证的JWT令牌
+ * 签名验证与声明解析只执行一次，结果以不可变对象在调用方之间共享
+ * @author wanyj
+ */
+@Getter
+@Builder
+public class ParsedToken {
+
+    public static final String TYPE_REFRESH = "refresh";
+
+    /**
+     * 令牌ID：jti，旧令牌（签发时无 jti）为令牌摘要
+     */
+    private final String tokenId;
+
+    /**
+     * 是否为旧格式令牌（无 jti）
+     */
+    private final boolean legacy;
+
+    private final Long userId;
+
+    private final Long tenantId;
+
+    /**
+     * 令牌类型：refresh 表示刷新令牌，为空表示访问令牌
+     */
+    private final String type;
+
+    private final String username;
+
+    private final String email;
+
+    /**
+     * 角色编码（不含 ROLE_ 前缀）
+     */
+    private final List<String> roles;
+
+    private final List<String> permissions;
+
+    /**
+     * 签发时间：毫秒精度（iat_ms），旧令牌为秒级的 iat
+     */
+    private final Instant issuedAt;
+
+    private final Instant expiresAt;
+
+    /**
+     * Check if this is a refresh token
+     * 是否为刷新令牌
+     */
+    public boolean isRefreshToken() {
+        return TYPE_REFRESH.equals(type);
+    }
+
+    /**
+     * Check if this is an access token
+     * 是否为访问令牌
+     */
+    public boolean isAccessToken() {
+        return !isRefreshToken();
+    }
+
+    /**
+     * Get remaining TTL in seconds
+     * 获取剩余有效期（秒）
+     */
+    public long getRemainingTtlSeconds() {
+        return TimeUnit.MILLISECONDS.toSeconds(expiresAt.toEpochMilli() - System.currentTimeMillis());
+    }
+}
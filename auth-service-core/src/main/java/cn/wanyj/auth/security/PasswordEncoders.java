@@ -0,0 +1,106 @@
+package cn.wanyj.auth.security;
+
+import cn.wanyj.auth.config.PasswordEncoderProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Password Encoders - 密码编码器工厂
+ * 构建带算法前缀（{bcrypt} / {argon2} / {pbkdf2}）的委托编码器，并在启动时按目标耗时校准 BCrypt 强度
+ * BCrypt 与 Argon2 的参数记录在哈希值中，可以校准与升级；PBKDF2 哈希不记录迭代次数，只能使用固定配置
+ * @author wanyj
+ */
+@Slf4j
+public final class PasswordEncoders {
+
+    public static final String BCRYPT = "bcrypt";
+    public static final String ARGON2 = "argon2";
+    public static final String PBKDF2 = "pbkdf2";
+
+    private static final String CALIBRATION_PASSWORD = "calibration-password";
+
+    private PasswordEncoders() {
+    }
+
+    /**
+     * Build the delegating encoder
+     * 构建委托编码器：新密码使用配置的算法，无前缀的旧哈希按 BCrypt 校验
+     */
+    public static PasswordEncoder create(PasswordEncoderProperties properties) {
+        String algorithm = properties.getAlgorithm().toLowerCase();
+
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(BCRYPT.equals(algorithm)
+                ? bcryptStrength(properties) : properties.getBcrypt().getMinStrength());
+        encoders.put(BCRYPT, bcrypt);
+        PasswordEncoderProperties.Argon2 argon2 = properties.getArgon2();
+        encoders.put(ARGON2, new Argon2PasswordEncoder(argon2.getSaltLength(), argon2.getHashLength(),
+                argon2.getParallelism(), argon2.getMemory(), argon2.getIterations()));
+        encoders.put(PBKDF2, pbkdf2(properties));
+
+        if (!encoders.containsKey(algorithm)) {
+            throw new IllegalStateException("Unsupported password.encoder.algorithm: " + properties.getAlgorithm());
+        }
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(algorithm, encoders);
+        // Seed data and hashes written before the prefix was introduced are plain BCrypt
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
+    }
+
+    /**
+     * Highest BCrypt strength whose hash time stays within the target
+     * 校准 BCrypt 强度：每加 1 耗时翻倍，取不超过目标耗时的最大强度
+     */
+    private static int bcryptStrength(PasswordEncoderProperties properties) {
+        PasswordEncoderProperties.Bcrypt bcrypt = properties.getBcrypt();
+        if (bcrypt.getStrength() > 0) {
+            return bcrypt.getStrength();
+        }
+        int strength = bcrypt.getMinStrength();
+        double millis = measure(s -> new BCryptPasswordEncoder(s), strength);
+        while (strength < bcrypt.getMaxStrength() && millis * 2 <= properties.getTargetLatency()) {
+            strength++;
+            millis *= 2;
+        }
+        log.info("Password encoder calibrated: bcrypt strength {} (~{} ms per hash, target {} ms)",
+                strength, Math.round(millis), properties.getTargetLatency());
+        return strength;
+    }
+
+    /**
+     * PBKDF2 with the configured fixed iteration count
+     * PBKDF2 哈希不记录迭代次数，校验时只能使用配置值，因此不做校准；修改迭代次数会导致已有 {pbkdf2} 哈希全部无法校验
+     */
+    private static PasswordEncoder pbkdf2(PasswordEncoderProperties properties) {
+        PasswordEncoderProperties.Pbkdf2 pbkdf2 = properties.getPbkdf2();
+        if (pbkdf2.getIterations() <= 0) {
+            throw new IllegalStateException("password.encoder.pbkdf2.iterations must be a fixed positive value");
+        }
+        return new Pbkdf2PasswordEncoder("", pbkdf2.getSaltLength(), pbkdf2.getIterations(),
+                Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256);
+    }
+
+    /**
+     * Best of three hash times after a warm-up, in milliseconds
+     * 预热后取三次哈希的最短耗时（毫秒）
+     */
+    private static double measure(IntFunction<PasswordEncoder> factory, int cost) {
+        PasswordEncoder encoder = factory.apply(cost);
+        encoder.encode(CALIBRATION_PASSWORD);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            encoder.encode(CALIBRATION_PASSWORD);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return Math.max(best / 1_000_000.0, 0.001);
+    }
+}
@@ -0,0 +1,228 @@
+package cn.wanyj.auth.security;
+
+import cn.wanyj.auth.exception.BusinessException;
+import cn.wanyj.auth.exception.ErrorCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Password Hasher - 密码哈希执行器
+ * 密码哈希（BCrypt / Argon2id / PBKDF2）在固定数量（默认等于 CPU 核数）的专用线程上执行，不占用 Tomcat 请求线程或 RPC 线程
+ * 等待队列按租户轮询出队，单个租户的登录洪峰不会排在所有其他租户前面；队列满时立即拒绝，而不是无限排队
+ * @author wanyj
+ */
+@Slf4j
+@Component
+public class PasswordHasher {
+
+    private final PasswordEncoder passwordEncoder;
+    private final int queueCapacity;
+    private final int tenantQueueCapacity;
+    private final Counter rejected;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+
+    // tenantId -> pending tasks of that tenant
+    private final Map<Long, ArrayDeque<Task<?>>> pending = new HashMap<>();
+
+    // Tenants with pending tasks, in round-robin order
+    private final ArrayDeque<Long> turns = new ArrayDeque<>();
+
+    private final List<Thread> workers = new ArrayList<>();
+    private int size;
+    private volatile boolean running = true;
+
+    public PasswordHasher(PasswordEncoder passwordEncoder,
+                          MeterRegistry meterRegistry,
+                          @Value("${password.hashing.threads:0}") int threads,
+                          @Value("${password.hashing.queue-capacity:256}") int queueCapacity,
+                          @Value("${password.hashing.tenant-queue-capacity:64}") int tenantQueueCapacity) {
+        this.passwordEncoder = passwordEncoder;
+        this.queueCapacity = queueCapacity;
+        this.tenantQueueCapacity = tenantQueueCapacity;
+        this.rejected = Counter.builder("password.hashing.rejected")
+                .description("Password hashing tasks rejected because the queue was full")
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.queued", this, PasswordHasher::queued)
+                .description("Password hashing tasks waiting for a thread")
+                .register(meterRegistry);
+
+        int workerCount = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::work, "password-hash-" + (i + 1));
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        log.info("Password hashing executor started with {} threads", workerCount);
+    }
+
+    /**
+     * Hash a raw password
+     * 计算密码哈希
+     *
+     * @return 完成于哈希线程；队列已满时以 {@link BusinessException} 失败
+     */
+    public CompletableFuture<String> encode(Long tenantId, CharSequence rawPassword) {
+        return submit(tenantId, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Verify a raw password against its hash
+     * 校验密码
+     *
+     * @return 完成于哈希线程；队列已满时以 {@link BusinessException} 失败
+     */
+    public CompletableFuture<Boolean> matches(Long tenantId, CharSequence rawPassword, String encodedPassword) {
+        return submit(tenantId, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Whether a stored hash uses an outdated algorithm or cost
+     * 已存哈希的算法或成本是否已过时，需要在下次登录成功时重新哈希
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Stop the workers and fail every queued task
+     * 停止哈希线程；排队中的任务立即以 503 失败，异步登录/注册不会挂起到超时
+     */
+    @PreDestroy
+    public void shutdown() {
+        List<Task<?>> dropped = new ArrayList<>();
+        lock.lock();
+        try {
+            running = false;
+            pending.values().forEach(dropped::addAll);
+            pending.clear();
+            turns.clear();
+            size = 0;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        workers.forEach(Thread::interrupt);
+        dropped.forEach(task -> task.future.completeExceptionally(new BusinessException(ErrorCode.SERVICE_UNAVAILABLE)));
+        if (!dropped.isEmpty()) {
+            log.warn("Password hashing executor stopped, failed {} queued tasks", dropped.size());
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(Long tenantId, Supplier<T> supplier) {
+        Task<T> task = new Task<>(supplier);
+
+        lock.lock();
+        try {
+            if (!running) {
+                return CompletableFuture.failedFuture(new BusinessException(ErrorCode.SERVICE_UNAVAILABLE));
+            }
+            ArrayDeque<Task<?>> queue = pending.get(tenantId);
+            if (size >= queueCapacity || (queue != null && queue.size() >= tenantQueueCapacity)) {
+                rejected.increment();
+                return CompletableFuture.failedFuture(new BusinessException(ErrorCode.TOO_MANY_REQUESTS));
+            }
+            if (queue == null) {
+                queue = new ArrayDeque<>();
+                pending.put(tenantId, queue);
+                turns.addLast(tenantId);
+            }
+            queue.addLast(task);
+            size++;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+        return task.future;
+    }
+
+    private void work() {
+        while (running) {
+            Task<?> task;
+            try {
+                task = take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            task.run();
+        }
+    }
+
+    /**
+     * Take the next task of the next tenant in turn
+     * 按租户轮询取出下一个任务
+     */
+    private Task<?> take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (size == 0) {
+                if (!running) {
+                    throw new InterruptedException();
+                }
+                notEmpty.await();
+            }
+            Long tenantId = turns.pollFirst();
+            ArrayDeque<Task<?>> queue = pending.get(tenantId);
+            Task<?> task = queue.pollFirst();
+            if (queue.isEmpty()) {
+                pending.remove(tenantId);
+            } else {
+                turns.addLast(tenantId);
+            }
+            size--;
+            return task;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int queued() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A queued hashing task and the future it completes
+     * 排队中的哈希任务及其结果
+     */
+    private static final class Task<T> implements Runnable {
+
+        private final Supplier<T> supplier;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private Task(Supplier<T> supplier) {
+            this.supplier = supplier;
+        }
+
+        @Override
+        public void run() {
+            try {
+                future.complete(supplier.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package cn.wanyj.auth.security;
+
+import cn.wanyj.auth.mapper.PermissionMapper;
+import cn.wanyj.auth.mapper.RoleMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * RBAC Engine - 内存授权引擎
+ * 每个租户持有一份编译后的 {@link RbacSnapshot}，读取无锁；角色或权限变更后整体替换快照（写时复制）
+ * 快照变更通过 Redis pub/sub 通知其他节点重新编译
+ * @author wanyj
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RbacEngine implements MessageListener {
+
+    /**
+     * Pub/sub channel for changed tenants
+     * 授权模型变更的广播频道
+     */
+    public static final String CHANNEL = "channel:rbac-refresh";
+
+    private final RoleMapper roleMapper;
+    private final PermissionMapper permissionMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    private final Map<Long, RbacSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * Get the current snapshot of a tenant, compiling it on first use
+     * 获取租户当前快照，首次访问时编译
+     */
+    public RbacSnapshot snapshot(Long tenantId) {
+        RbacSnapshot snapshot = snapshots.get(tenantId);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        return snapshots.computeIfAbsent(tenantId, this::compile);
+    }
+
+    /**
+     * Recompile a tenant after its roles or permissions changed
+     * 角色或权限变更后重新编译租户快照（事务提交后执行，并通知其他节点）
+     */
+    public void refresh(Long tenantId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(tenantId);
+                }
+            });
+        } else {
+            publish(tenantId);
+        }
+    }
+
+    /**
+     * Periodically recompile loaded tenants
+     * 定期重新编译已加载的租户，兜底 pub/sub 消息丢失
+     */
+    @Scheduled(fixedDelayString = "${authz.rbac.reload-interval:300000}",
+            initialDelayString = "${authz.rbac.reload-interval:300000}")
+    public void reloadAll() {
+        for (Long tenantId : snapshots.keySet()) {
+            try {
+                snapshots.computeIfPresent(tenantId, (id, old) -> compile(id));
+            } catch (Exception e) {
+                // Keep serving the previous snapshot
+                log.warn("Failed to reload RBAC snapshot for tenant {}: {}", tenantId, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Long tenantId = Long.valueOf(new String(message.getBody(), StandardCharsets.UTF_8));
+        // Tenants never used on this node stay unloaded
+        snapshots.computeIfPresent(tenantId, (id, old) -> compile(id));
+    }
+
+    private void publish(Long tenantId) {
+        snapshots.computeIfPresent(tenantId, (id, old) -> compile(id));
+        try {
+            stringRedisTemplate.convertAndSend(CHANNEL, String.valueOf(tenantId));
+        } catch (Exception e) {
+            log.warn("Failed to publish RBAC refresh for tenant {}: {}", tenantId, e.getMessage());
+        }
+    }
+
+    private RbacSnapshot compile(Long tenantId) {
+        RbacSnapshot snapshot = RbacSnapshot.compile(tenantId,
+                roleMapper.findAllWithPermissions(tenantId),
+                permissionMapper.findAll(tenantId));
+        log.debug("Compiled RBAC snapshot for tenant {}", tenantId);
+        return snapshot;
+    }
+}
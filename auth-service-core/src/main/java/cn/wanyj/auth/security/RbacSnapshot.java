@@ -0,0 +1,154 @@
+package cn.wanyj.auth.security;
+
+import cn.wanyj.auth.entity.Permission;
+import cn.wanyj.auth.entity.Role;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * RBAC Snapshot - 租户授权模型的编译快照
+ * 权限编码映射为连续整数，每个角色的权限保存为位图；用户鉴权只需按角色ID查位图，无需关联查询
+ * 快照构建后不再修改，可被任意线程无锁读取
+ * @author wanyj
+ */
+public final class RbacSnapshot {
+
+    private final Long tenantId;
+
+    // permission code -> dense index
+    private final Map<String, Integer> permissionIndex;
+    private final String[] permissionCodes;
+
+    // role id -> role code / permission bitset
+    private final Map<Long, String> roleCodes;
+    private final Map<Long, BitSet> rolePermissions;
+
+    private RbacSnapshot(Long tenantId, Map<String, Integer> permissionIndex, String[] permissionCodes,
+                         Map<Long, String> roleCodes, Map<Long, BitSet> rolePermissions) {
+        this.tenantId = tenantId;
+        this.permissionIndex = permissionIndex;
+        this.permissionCodes = permissionCodes;
+        this.roleCodes = roleCodes;
+        this.rolePermissions = rolePermissions;
+    }
+
+    /**
+     * Compile roles and permissions of a tenant
+     * 编译租户的角色与权限
+     */
+    public static RbacSnapshot compile(Long tenantId, List<Role> roles, List<Permission> permissions) {
+        Map<String, Integer> permissionIndex = new HashMap<>();
+        for (Permission permission : permissions) {
+            permissionIndex.putIfAbsent(permission.getCode(), permissionIndex.size());
+        }
+        String[] permissionCodes = new String[permissionIndex.size()];
+        permissionIndex.forEach((code, index) -> permissionCodes[index] = code);
+
+        Map<Long, String> roleCodes = new HashMap<>();
+        Map<Long, BitSet> rolePermissions = new HashMap<>();
+        for (Role role : roles) {
+            BitSet bits = new BitSet(permissionCodes.length);
+            if (role.getPermissions() != null) {
+                for (Permission permission : role.getPermissions()) {
+                    Integer index = permissionIndex.get(permission.getCode());
+                    if (index != null) {
+                        bits.set(index);
+                    }
+                }
+            }
+            roleCodes.put(role.getId(), role.getCode());
+            rolePermissions.put(role.getId(), bits);
+        }
+
+        return new RbacSnapshot(tenantId, Map.copyOf(permissionIndex), permissionCodes,
+                Map.copyOf(roleCodes), Map.copyOf(rolePermissions));
+    }
+
+    public Long getTenantId() {
+        return tenantId;
+    }
+
+    /**
+     * Check if any of the roles grants the permission
+     * 任一角色拥有该权限即返回 true
+     */
+    public boolean hasPermission(Collection<Long> roleIds, String permission) {
+        Integer index = permissionIndex.get(permission);
+        if (index == null) {
+            return false;
+        }
+        for (Long roleId : roleIds) {
+            BitSet bits = rolePermissions.get(roleId);
+            if (bits != null && bits.get(index)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check if any of the roles has the code
+     * 任一角色编码匹配即返回 true
+     */
+    public boolean hasRole(Collection<Long> roleIds, String roleCode) {
+        for (Long roleId : roleIds) {
+            if (roleCode.equals(roleCodes.get(roleId))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Role codes of the roles
+     * 获取角色编码（忽略不属于本租户的角色）
+     */
+    public Set<String> getRoleCodes(Collection<Long> roleIds) {
+        Set<String> codes = new HashSet<>();
+        for (Long roleId : roleIds) {
+            String code = roleCodes.get(roleId);
+            if (code != null) {
+                codes.add(code);
+            }
+        }
+        return codes;
+    }
+
+    /**
+     * Id of the tenant role with the code
+     * 根据角色编码查找本租户的角色ID，不存在时返回 null
+     */
+    public Long findRoleId(String roleCode) {
+        for (Map.Entry<Long, String> entry : roleCodes.entrySet()) {
+            if (roleCode.equals(entry.getValue())) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Effective permission codes of the roles (OR of role bitsets)
+     * 获取角色的有效权限编码（角色位图按位或）
+     */
+    public Set<String> getPermissionCodes(Collection<Long> roleIds) {
+        BitSet effective = new BitSet(permissionCodes.length);
+        for (Long roleId : roleIds) {
+            BitSet bits = rolePermissions.get(roleId);
+            if (bits != null) {
+                effective.or(bits);
+            }
+        }
+        Set<String> codes = new HashSet<>();
+        for (int i = effective.nextSetBit(0); i >= 0; i = effective.nextSetBit(i + 1)) {
+            codes.add(permissionCodes[i]);
+        }
+        return codes;
+    }
+}
@@ -10,6 +10,27 @@ import org.springframework.security.core.context.SecurityContextHolder;
  */
 public class SecurityUtils {
 
+    /**
+     * Spring Security role prefix - 角色权限前缀
+     */
+    public static final String ROLE_PREFIX = "ROLE_";
+
+    /**
+     * Strip a leading ROLE_ prefix from a role code (JWT role claims are stored without it)
+     * 去掉角色编码开头的 ROLE_ 前缀，编码中间的 ROLE_ 保持不变
+     */
+    public static String stripRolePrefix(String code) {
+        return code.startsWith(ROLE_PREFIX) ? code.substring(ROLE_PREFIX.length()) : code;
+    }
+
+    /**
+     * Role authority of a role code, with exactly one ROLE_ prefix
+     * 角色权限名：无论角色编码是否自带前缀，都只带一个 ROLE_ 前缀
+     */
+    public static String toRoleAuthority(String code) {
+        return ROLE_PREFIX + stripRolePrefix(code);
+    }
+
     /**
      * Get current user ID from security context
      * 从安全上下文中获取当前用户ID
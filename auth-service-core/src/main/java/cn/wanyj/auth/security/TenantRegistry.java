@@ -0,0 +1,186 @@
+package cn.wanyj.auth.security;
+
+import cn.wanyj.auth.entity.Tenant;
+import cn.wanyj.auth.mapper.TenantMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tenant Registry - 租户注册表
+ * 每个节点在内存中保存全部租户的不可变快照（按ID与编码索引），租户状态检查不访问数据库，可在每个请求上执行
+ * 有效性按调用时刻与 expiredAt 比较，到期即失效，无需轮询或定时失效；租户增删改在事务提交后重新加载，并通过 Redis pub/sub 通知其他节点
+ * 数据库中也不存在的租户ID在本地短时缓存，伪造租户ID的未认证请求不会每次都查询数据库
+ * @author wanyj
+ */
+@Slf4j
+@Component
+public class TenantRegistry implements MessageListener {
+
+    /**
+     * Pub/sub channel for tenant changes (body: tenant id)
+     * 租户变更广播频道
+     */
+    public static final String CHANNEL = "channel:tenant-registry";
+
+    private final TenantMapper tenantMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    // Tenant ids recently found in neither the snapshot nor the database
+    private final Cache<Long, Boolean> missing;
+
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), Map.of());
+
+    public TenantRegistry(TenantMapper tenantMapper,
+                          StringRedisTemplate stringRedisTemplate,
+                          RedisMessageListenerContainer listenerContainer,
+                          @Value("${tenant.registry.negative-cache.max-size:10000}") long maxMissing,
+                          @Value("${tenant.registry.negative-cache.ttl:30000}") long missingTtl) {
+        this.tenantMapper = tenantMapper;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.listenerContainer = listenerContainer;
+        // The TTL bounds how long a tenant created on another node stays unknown if its message is lost
+        this.missing = Caffeine.newBuilder()
+                .maximumSize(maxMissing)
+                .expireAfterWrite(missingTtl, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @PostConstruct
+    public void init() {
+        reload();
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * Get a tenant by id
+     * 根据ID获取租户，未知ID时回源数据库（兜底其他节点新建租户的通知尚未到达）；数据库中也不存在的ID短时缓存，不再重复查询
+     *
+     * @return 共享的快照对象，调用方不得修改
+     */
+    public Tenant get(Long tenantId) {
+        if (tenantId == null) {
+            return null;
+        }
+        Tenant tenant = snapshot.byId().get(tenantId);
+        if (tenant == null && missing.getIfPresent(tenantId) == null) {
+            tenant = tenantMapper.findById(tenantId);
+            if (tenant != null) {
+                reload();
+            } else {
+                missing.put(tenantId, Boolean.TRUE);
+            }
+        }
+        return tenant;
+    }
+
+    /**
+     * Get a tenant by code
+     * 根据编码获取租户
+     *
+     * @return 共享的快照对象，调用方不得修改
+     */
+    public Tenant getByCode(String tenantCode) {
+        return tenantCode == null ? null : snapshot.byCode().get(tenantCode);
+    }
+
+    /**
+     * Whether the tenant exists, is enabled and has not expired
+     * 租户是否存在、启用且未过期
+     */
+    public boolean isValid(Long tenantId) {
+        Tenant tenant = get(tenantId);
+        return tenant != null && tenant.isValid();
+    }
+
+    /**
+     * All tenants ordered by id
+     * 全部租户（按ID排序）
+     */
+    public Collection<Tenant> getAll() {
+        return snapshot.byId().values().stream()
+                .sorted((a, b) -> Long.compare(a.getId(), b.getId()))
+                .toList();
+    }
+
+    /**
+     * Reload after a tenant was created, updated or deleted
+     * 租户变更后重新加载（事务提交后执行，并通知其他节点）
+     */
+    public void refresh(Long tenantId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(tenantId);
+                }
+            });
+        } else {
+            publish(tenantId);
+        }
+    }
+
+    /**
+     * Periodically reload all tenants
+     * 定期重新加载，兜底 pub/sub 消息丢失
+     */
+    @Scheduled(fixedDelayString = "${tenant.registry.reload-interval:300000}",
+            initialDelayString = "${tenant.registry.reload-interval:300000}")
+    public void reloadAll() {
+        try {
+            reload();
+        } catch (Exception e) {
+            // Keep serving the previous snapshot
+            log.warn("Failed to reload tenant registry: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        reloadAll();
+    }
+
+    private void publish(Long tenantId) {
+        reloadAll();
+        try {
+            stringRedisTemplate.convertAndSend(CHANNEL, String.valueOf(tenantId));
+        } catch (Exception e) {
+            log.warn("Failed to publish tenant registry refresh for tenant {}: {}", tenantId, e.getMessage());
+        }
+    }
+
+    private synchronized void reload() {
+        List<Tenant> tenants = tenantMapper.findAll();
+        Map<Long, Tenant> byId = new HashMap<>();
+        Map<String, Tenant> byCode = new HashMap<>();
+        for (Tenant tenant : tenants) {
+            byId.put(tenant.getId(), tenant);
+            byCode.put(tenant.getTenantCode(), tenant);
+        }
+        snapshot = new Snapshot(Map.copyOf(byId), Map.copyOf(byCode));
+        // Created tenants are in the new snapshot, so remembered misses are no longer needed
+        missing.invalidateAll();
+        log.debug("Loaded tenant registry: {} tenants", tenants.size());
+    }
+
+    private record Snapshot(Map<Long, Tenant> byId, Map<String, Tenant> byCode) {
+    }
+}
@@ -1,9 +1,11 @@
 package cn.wanyj.auth.security;
 
 import cn.wanyj.auth.security.SecurityUtils;
+import cn.wanyj.auth.entity.LoginIdentifier;
 import cn.wanyj.auth.entity.Permission;
 import cn.wanyj.auth.entity.Role;
 import cn.wanyj.auth.entity.User;
+import cn.wanyj.auth.mapper.LoginIdentifierMapper;
 import cn.wanyj.auth.mapper.UserMapper;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
@@ -31,6 +33,7 @@ import java.util.Set;
 public class UserDetailsServiceImpl implements UserDetailsService {
 
     private final UserMapper userMapper;
+    private final LoginIdentifierMapper loginIdentifierMapper;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
@@ -39,8 +42,9 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         // Get tenant ID from JWT token
         Long tenantId = SecurityUtils.getCurrentTenantId();
 
-        // Load user with roles and permissions from database
-        User user = userMapper.findByUsernameOrEmailWithRolesAndPermissions(username, tenantId);
+        // Resolve username / email / phone with a single unique-key lookup, then load roles and permissions
+        Long userId = loginIdentifierMapper.findUserId(tenantId, LoginIdentifier.normalize(username));
+        User user = userId != null ? userMapper.findByIdWithRolesAndPermissions(userId, tenantId) : null;
 
         if (user == null) {
             log.error("User not found: {}", username);
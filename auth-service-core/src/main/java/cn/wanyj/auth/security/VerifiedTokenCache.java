@@ -0,0 +1,104 @@
+package cn.wanyj.auth.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verified Token Cache - 已验证令牌缓存
+ * 缓存已通过签名验证的令牌，热点令牌无需重复进行 HMAC 验证和声明反序列化
+ * 以令牌摘要为键，条目在令牌自身的 exp 时间过期，超出容量时按 W-TinyLFU 淘汰
+ * @author wanyj
+ */
+@Slf4j
+@Component
+public class VerifiedTokenCache {
+
+    private static final String CACHE_NAME = "verifiedToken";
+
+    private final JwtTokenProvider jwtTokenProvider;
+    private final Cache<String, ParsedToken> cache;
+
+    public VerifiedTokenCache(JwtTokenProvider jwtTokenProvider,
+                              MeterRegistry meterRegistry,
+                              @Value("${jwt.token-cache.max-size:100000}") long maxSize) {
+        this.jwtTokenProvider = jwtTokenProvider;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+
+        // Expose size, hit/miss and eviction metrics, plus hit ratio
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        Gauge.builder("cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .tag("cache", CACHE_NAME)
+                .description("Hit ratio of the verified token cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Parse token, using cached result when the token has been verified before
+     * 解析令牌，已验证过的令牌直接返回缓存结果
+     *
+     * @throws JwtException 令牌无效、签名错误或已过期
+     * @throws IllegalArgumentException 令牌为空
+     */
+    public ParsedToken parseToken(String token) {
+        return cache.get(JwtTokenProvider.digest(token), key -> jwtTokenProvider.parseToken(token));
+    }
+
+    /**
+     * Parse access token, return null if invalid
+     * 解析访问令牌，无效或为刷新令牌时返回 null
+     */
+    public ParsedToken parseAccessToken(String token) {
+        try {
+            ParsedToken parsed = parseToken(token);
+            return parsed.isAccessToken() ? parsed : null;
+        } catch (JwtException | IllegalArgumentException e) {
+            log.error("Invalid JWT token: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Remove token from cache
+     * 从缓存中移除令牌
+     */
+    public void invalidate(String token) {
+        cache.invalidate(JwtTokenProvider.digest(token));
+    }
+
+    /**
+     * Expire each entry at the token's own exp
+     * 每个条目在令牌自身的过期时间失效
+     */
+    private static class TokenExpiry implements Expiry<String, ParsedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, ParsedToken value, long currentTime) {
+            long remainingMillis = value.getExpiresAt().toEpochMilli() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, ParsedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, ParsedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -6,6 +6,8 @@ import cn.wanyj.auth.dto.request.RegisterRequest;
 import cn.wanyj.auth.dto.response.TokenResponse;
 import cn.wanyj.auth.dto.response.UserResponse;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Auth Service - 认证服务接口
  * @author wanyj
@@ -14,15 +16,23 @@ public interface AuthService {
 
     /**
      * Register new user and auto-login
-     * 用户注册并自动登录
+     * 用户注册并自动登录，密码哈希完成后异步返回
+     */
+    CompletableFuture<TokenResponse> register(RegisterRequest request);
+
+    /**
+     * Check if a username is available in the tenant
+     * 检查用户名在租户内是否可用，一定未被占用时不查询数据库；按客户端IP限流，租户无效时抛出 INVALID_TENANT
+     *
+     * @param clientIp 客户端IP，未知时为 null
      */
-    TokenResponse register(RegisterRequest request);
+    boolean isUsernameAvailable(Long tenantId, String username, String clientIp);
 
     /**
      * User login
-     * 用户登录
+     * 用户登录，密码校验完成后异步返回
      */
-    TokenResponse login(LoginRequest request);
+    CompletableFuture<TokenResponse> login(LoginRequest request);
 
     /**
      * Refresh access token
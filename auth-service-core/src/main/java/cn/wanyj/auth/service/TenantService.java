@@ -102,6 +102,15 @@ public interface TenantService {
      */
     boolean isUserLimitReached(Long tenantId);
 
+    /**
+     * 占用一个用户名额（在新增用户的事务内调用，回滚时名额随之释放）
+     * 计数与上限比较在一条条件 UPDATE 中完成，并发注册不会超出上限
+     *
+     * @param tenantId 租户ID
+     * @throws cn.wanyj.auth.exception.BusinessException 已达到用户数量限制时抛出
+     */
+    void reserveUserSlot(Long tenantId);
+
     /**
      * 初始化租户的默认角色和权限
      * 为新创建的租户初始化 ROLE_ADMIN 和 ROLE_USER 角色
@@ -1,5 +1,7 @@
 package cn.wanyj.auth.service;
 
+import java.time.Instant;
+
 /**
  * Token Service - 令牌服务接口
  *
@@ -49,30 +51,87 @@ public interface TokenService {
 
     /**
      * Add access token to blacklist (with tenant isolation)
-     * 将 accessToken 加入黑名单（带租户隔离）
+     * 将 accessToken 加入黑名单（带租户隔离），以令牌ID（jti）为键
      *
      * @param tenantId 租户ID
-     * @param token JWT token
+     * @param tokenId 令牌ID，见 {@link cn.wanyj.auth.security.ParsedToken#getTokenId()}
      * @param ttl   TTL in seconds
      */
-    void addToBlacklist(Long tenantId, String token, long ttl);
+    void addToBlacklist(Long tenantId, String tokenId, long ttl);
 
     /**
      * Check if token is blacklisted
-     * 检查 token 是否在黑名单中
+     * 检查令牌是否在黑名单中
+     *
+     * @param tenantId 租户ID
+     * @param tokenId 令牌ID
+     * @return true if blacklisted, false otherwise
+     */
+    boolean isBlacklisted(Long tenantId, String tokenId);
+
+    /**
+     * Check blacklist entry keyed by the full token string
+     * 检查以完整令牌为键的旧格式黑名单条目（仅用于无 jti 的旧令牌，旧令牌全部过期后可移除）
      *
      * @param tenantId 租户ID
      * @param token JWT token
      * @return true if blacklisted, false otherwise
      */
-    boolean isBlacklisted(Long tenantId, String token);
+    boolean isLegacyBlacklisted(Long tenantId, String token);
 
     /**
-     * Delete all tokens for a user (refresh token and access tokens in blacklist)
-     * 删除用户的所有令牌
+     * Revoke all tokens for a user
+     * 撤销用户的所有令牌：删除刷新令牌，并推进用户水位线使此前签发的访问令牌失效
      *
      * @param tenantId 租户ID
      * @param userId 用户ID
      */
     void revokeAllTokens(Long tenantId, Long userId);
+
+    /**
+     * Revoke all tokens for a tenant
+     * 撤销租户下所有用户的令牌（推进租户水位线）
+     *
+     * @param tenantId 租户ID
+     */
+    void revokeTenantTokens(Long tenantId);
+
+    /**
+     * Check if token was issued before a user or tenant revocation
+     * 检查令牌是否签发于用户或租户的撤销水位线之前
+     *
+     * @param tenantId 租户ID
+     * @param userId 用户ID
+     * @param issuedAt 令牌签发时间（毫秒精度，见 ParsedToken#getIssuedAt）
+     * @return true if revoked, false otherwise
+     */
+    boolean isRevoked(Long tenantId, Long userId, Instant issuedAt);
+
+    /**
+     * Mark role/permission claims in a user's existing tokens as stale
+     * 标记用户已签发令牌中的角色/权限声明已过期（用户角色变更时调用）
+     *
+     * @param tenantId 租户ID
+     * @param userId 用户ID
+     */
+    void markUserClaimsStale(Long tenantId, Long userId);
+
+    /**
+     * Mark role/permission claims in all existing tokens of a tenant as stale
+     * 标记租户下已签发令牌中的角色/权限声明已过期（角色或权限定义变更时调用）
+     *
+     * @param tenantId 租户ID
+     */
+    void markTenantClaimsStale(Long tenantId);
+
+    /**
+     * Check if role/permission claims of a token can no longer be trusted
+     * 检查令牌中的角色/权限声明是否已过期
+     *
+     * @param tenantId 租户ID
+     * @param userId 用户ID
+     * @param issuedAt 令牌签发时间（毫秒精度，见 ParsedToken#getIssuedAt）
+     * @return true if claims are stale, false otherwise
+     */
+    boolean isClaimsStale(Long tenantId, Long userId, Instant issuedAt);
 }
@@ -25,9 +25,9 @@ public interface UserService {
 
     /**
      * Search users with pagination
-     * 分页搜索用户
+     * 分页搜索用户：传入 cursor 时按游标继续（keyset 分页），否则按页码；withTotal 为 false 时不返回总数
      */
-    PageResponse<UserResponse> searchUsers(String keyword, Integer page, Integer size);
+    PageResponse<UserResponse> searchUsers(String keyword, Integer page, Integer size, String cursor, boolean withTotal);
 
     /**
      * Assign roles to user
@@ -6,26 +6,42 @@ import cn.wanyj.auth.dto.request.LoginRequest;
 import cn.wanyj.auth.dto.request.RegisterRequest;
 import cn.wanyj.auth.dto.response.TokenResponse;
 import cn.wanyj.auth.dto.response.UserResponse;
+import cn.wanyj.auth.entity.LoginIdentifier;
 import cn.wanyj.auth.entity.Permission;
 import cn.wanyj.auth.entity.Role;
 import cn.wanyj.auth.entity.User;
 import cn.wanyj.auth.exception.BusinessException;
 import cn.wanyj.auth.exception.ErrorCode;
+import cn.wanyj.auth.mapper.LoginIdentifierMapper;
 import cn.wanyj.auth.mapper.UserMapper;
+import cn.wanyj.auth.security.AuthorizationCache;
+import cn.wanyj.auth.security.EffectiveAuthorities;
 import cn.wanyj.auth.security.JwtTokenProvider;
+import cn.wanyj.auth.security.LoginIdentifierFilter;
+import cn.wanyj.auth.security.LoginNegativeCache;
+import cn.wanyj.auth.security.LoginRateLimiter;
+import cn.wanyj.auth.security.ParsedToken;
+import cn.wanyj.auth.security.PasswordHasher;
+import cn.wanyj.auth.security.RbacEngine;
+import cn.wanyj.auth.security.RbacSnapshot;
 import cn.wanyj.auth.security.SecurityUtils;
 import cn.wanyj.auth.service.AuthService;
 import cn.wanyj.auth.service.TokenService;
 import cn.wanyj.auth.service.TenantService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.time.LocalDateTime;
+import java.time.Instant;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -38,48 +54,43 @@ import java.util.stream.Collectors;
 public class AuthServiceImpl implements AuthService {
 
     private final UserMapper userMapper;
-    private final PasswordEncoder passwordEncoder;
+    private final LoginIdentifierMapper loginIdentifierMapper;
+    private final PasswordHasher passwordHasher;
+    private final AuthorizationCache authorizationCache;
+    private final LoginRateLimiter loginRateLimiter;
+    private final LoginNegativeCache loginNegativeCache;
+    private final LoginIdentifierFilter loginIdentifierFilter;
+    private final LastLoginRecorder lastLoginRecorder;
+    private final LoginIoExecutor loginIoExecutor;
+    private final TransactionTemplate transactionTemplate;
     private final JwtTokenProvider jwtTokenProvider;
     private final TokenService tokenService;
+    private final RbacEngine rbacEngine;
     private final TenantService tenantService;
 
     @Override
-    @Transactional
-    public TokenResponse register(RegisterRequest request) {
+    public CompletableFuture<TokenResponse> register(RegisterRequest request) {
         // tenantId is required, no default fallback
         Long tenantId = request.getTenantId();
         log.info("Registering user: {} in tenant: {}", request.getUsername(), tenantId);
 
-        // Validate tenant is valid
+        // Validate optional fields only if they are provided
+        validateOptionalFields(request);
+
+        // Validate tenant is valid (answered by the in-memory tenant registry)
         if (!tenantService.isValidTenant(tenantId)) {
             throw new BusinessException(ErrorCode.INVALID_TENANT);
         }
 
-        // Check if user limit is reached
+        // Check if user limit is reached (users are only counted when the tenant has a limit)
         if (tenantService.isUserLimitReached(tenantId)) {
             throw new BusinessException(ErrorCode.TENANT_USER_LIMIT_REACHED);
         }
 
-        // Validate optional fields only if they are provided
-        validateOptionalFields(request);
-
-        // Check if username already exists in current tenant
-        if (userMapper.existsByUsername(request.getUsername(), tenantId)) {
-            throw new BusinessException(ErrorCode.USERNAME_EXISTS);
-        }
-
-        // Check if email already exists in current tenant (only if email is provided)
-        if (request.getEmail() != null && !request.getEmail().isBlank()) {
-            if (userMapper.existsByEmail(request.getEmail(), tenantId)) {
-                throw new BusinessException(ErrorCode.EMAIL_EXISTS);
-            }
-        }
-
         // Create new user with tenantId
         User user = User.builder()
                 .tenantId(tenantId)
                 .username(request.getUsername())
-                .password(passwordEncoder.encode(request.getPassword()))
                 .email(request.getEmail())
                 .phone(request.getPhone())
                 .nickname(request.getNickname() != null && !request.getNickname().isBlank()
@@ -89,33 +100,94 @@ public class AuthServiceImpl implements AuthService {
                 .roles(new HashSet<>())
                 .build();
 
-        // Insert user
-        userMapper.insert(user);
+        // Username, email and phone are unique login identifiers in the tenant; the unique keys enforce it at insert.
+        // Identifiers the tenant's Bloom filter has never seen are definitely free and skip the lookup,
+        // the rest are checked in one query so no password is hashed for a taken one
+        List<LoginIdentifier> candidates = LoginIdentifier.of(user).stream()
+                .filter(identifier -> loginIdentifierFilter.mightBeTaken(tenantId, identifier.getNormalizedValue()))
+                .toList();
+        LoginIdentifier taken = candidates.isEmpty() ? null : findTaken(tenantId, candidates);
+        if (taken != null) {
+            throw new BusinessException(identifierExists(taken.getKind()));
+        }
+
+        // Hash on the password hashing executor, then insert in a transaction of its own on the login I/O executor
+        return passwordHasher.encode(tenantId, request.getPassword())
+                .thenApplyAsync(encodedPassword -> transactionTemplate.execute(status -> {
+                    user.setPassword(encodedPassword);
+                    return createUser(user);
+                }), loginIoExecutor);
+    }
+
+    @Override
+    public boolean isUsernameAvailable(Long tenantId, String username, String clientIp) {
+        loginRateLimiter.checkClient(clientIp);
+        // Unknown or disabled tenants must not load (and evict) identifier filters
+        if (!tenantService.isValidTenant(tenantId)) {
+            throw new BusinessException(ErrorCode.INVALID_TENANT);
+        }
+        String normalized = LoginIdentifier.normalize(username);
+        if (!loginIdentifierFilter.mightBeTaken(tenantId, normalized)) {
+            return true;
+        }
+        return loginIdentifierMapper.findUserId(tenantId, normalized) == null;
+    }
+
+    /**
+     * Insert the registered user and issue its tokens
+     * 写入注册用户并签发令牌
+     */
+    private TokenResponse createUser(User user) {
+        Long tenantId = user.getTenantId();
+
+        // Insert user and its login identifiers; a concurrent registration of the same identifier loses on the unique keys
+        List<LoginIdentifier> identifiers;
+        try {
+            userMapper.insert(user);
+            identifiers = LoginIdentifier.of(user);
+            loginIdentifierMapper.insertBatch(identifiers);
+        } catch (DuplicateKeyException e) {
+            throw new BusinessException(duplicateIdentifier(e, user));
+        }
 
-        // Insert user role relationship (use ROLE_USER for this tenant)
-        Role userRole = userMapper.findRoleByCodeAndTenantId("ROLE_USER", tenantId);
-        if (userRole != null) {
-            userMapper.insertUserRole(user.getId(), userRole.getId(), tenantId);
+        // Take a user slot last, so the tenant row stays locked only until commit
+        tenantService.reserveUserSlot(tenantId);
+        List<String> normalizedValues = identifiers.stream().map(LoginIdentifier::getNormalizedValue).toList();
+        loginIdentifierFilter.add(tenantId, normalizedValues);
+        loginNegativeCache.invalidate(tenantId, normalizedValues);
+
+        // Insert user role relationship (use ROLE_USER for this tenant, resolved from the RBAC snapshot)
+        RbacSnapshot snapshot = rbacEngine.snapshot(tenantId);
+        Long userRoleId = snapshot.findRoleId("ROLE_USER");
+        if (userRoleId == null) {
+            // Snapshot may predate the role; fall back to the table
+            Role userRole = userMapper.findRoleByCodeAndTenantId("ROLE_USER", tenantId);
+            if (userRole != null) {
+                userRoleId = userRole.getId();
+                rbacEngine.refresh(tenantId);
+            }
+        }
+        if (userRoleId != null) {
+            userMapper.insertUserRole(user.getId(), userRoleId, tenantId);
         } else {
             log.warn("ROLE_USER not found for tenant: {}, skipping role assignment", tenantId);
         }
 
         log.info("User registered successfully: {} in tenant: {}", user.getId(), tenantId);
 
-        // Reload user with roles and permissions from database
-        user = userMapper.findByIdWithRolesAndPermissions(user.getId(), tenantId);
+        // The inserted row and the RBAC snapshot already hold everything the tokens need, no reload
+        EffectiveAuthorities authorities = new EffectiveAuthorities(user.getId(), tenantId, true,
+                userRoleId != null ? Set.of(userRoleId) : Set.of(), snapshot);
 
         // Generate tokens (auto-login after registration)
-        String accessToken = jwtTokenProvider.generateAccessToken(user);
+        String accessToken = jwtTokenProvider.generateAccessToken(user, authorities);
         String refreshToken = jwtTokenProvider.generateRefreshToken(user);
 
         // Save refresh token to Redis
         tokenService.saveRefreshToken(user.getTenantId(), user.getId(), refreshToken);
 
         // Build response
-        Set<String> roles = user.getRoles().stream()
-                .map(Role::getCode)
-                .collect(Collectors.toSet());
+        Set<String> roles = authorities.getRoles();
 
         return TokenResponse.builder()
                 .accessToken(accessToken)
@@ -154,15 +226,70 @@ public class AuthServiceImpl implements AuthService {
         }
     }
 
+    /**
+     * Map a violated unique key to the identifier that is already taken
+     * 根据冲突的唯一键确定已被占用的标识
+     */
+    private ErrorCode duplicateIdentifier(DuplicateKeyException e, User user) {
+        String message = String.valueOf(e.getMessage());
+        if (message.contains("uk_username_tenant")) {
+            return ErrorCode.USERNAME_EXISTS;
+        }
+        if (message.contains("uk_email_tenant")) {
+            return ErrorCode.EMAIL_EXISTS;
+        }
+        // login_identifier.uk_tenant_value: find out which identifier collided
+        for (LoginIdentifier identifier : LoginIdentifier.of(user)) {
+            Long ownerId = loginIdentifierMapper.findUserId(user.getTenantId(), identifier.getNormalizedValue());
+            if (ownerId != null && !ownerId.equals(user.getId())) {
+                return identifierExists(identifier.getKind());
+            }
+        }
+        return ErrorCode.USERNAME_EXISTS;
+    }
+
+    /**
+     * Find the first identifier already taken in the tenant (one query for all of them)
+     * 一次查询检查多个登录标识，返回第一个已被占用的标识，均未占用时返回 null
+     */
+    private LoginIdentifier findTaken(Long tenantId, List<LoginIdentifier> identifiers) {
+        Set<String> taken = new HashSet<>(loginIdentifierMapper.findTakenValues(tenantId,
+                identifiers.stream().map(LoginIdentifier::getNormalizedValue).toList()));
+        return identifiers.stream()
+                .filter(identifier -> taken.contains(identifier.getNormalizedValue()))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static ErrorCode identifierExists(String kind) {
+        return switch (kind) {
+            case LoginIdentifier.KIND_EMAIL -> ErrorCode.EMAIL_EXISTS;
+            case LoginIdentifier.KIND_PHONE -> ErrorCode.PHONE_EXISTS;
+            default -> ErrorCode.USERNAME_EXISTS;
+        };
+    }
+
     @Override
-    public TokenResponse login(LoginRequest request) {
+    public CompletableFuture<TokenResponse> login(LoginRequest request) {
         // tenantId is required, no default fallback
         Long tenantId = request.getTenantId();
         log.info("User login attempt: {} in tenant: {}", request.getUsername(), tenantId);
 
-        // Load user from database with roles and permissions
-        User user = userMapper.findByUsernameOrEmailWithRolesAndPermissions(request.getUsername(), tenantId);
+        String identifier = LoginIdentifier.normalize(request.getUsername());
+        String clientIp = request.getClientIp();
+
+        // Abusive traffic is rejected before it reaches the database or the password hasher
+        long delay = loginRateLimiter.check(tenantId, identifier, clientIp);
+        if (loginNegativeCache.isUnknown(tenantId, identifier)) {
+            loginRateLimiter.recordFailure(tenantId, identifier, clientIp);
+            throw new BusinessException(ErrorCode.USER_NOT_FOUND);
+        }
+
+        // Phase 1: credentials only (single indexed row); roles and permissions are loaded after the password matches
+        User user = userMapper.findCredentialsByLoginIdentifier(identifier, tenantId);
         if (user == null) {
+            loginNegativeCache.markUnknown(tenantId, identifier);
+            loginRateLimiter.recordFailure(tenantId, identifier, clientIp);
             throw new BusinessException(ErrorCode.USER_NOT_FOUND);
         }
 
@@ -171,17 +298,65 @@ public class AuthServiceImpl implements AuthService {
             throw new BusinessException(ErrorCode.USER_DISABLED);
         }
 
-        // Verify password
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
-            throw new BusinessException(ErrorCode.INVALID_CREDENTIALS);
+        // An identifier failing from many clients is slowed down rather than locked, so nobody can lock out its owner
+        CompletableFuture<Boolean> verified = delay > 0
+                ? CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS))
+                        .thenCompose(ignored -> passwordHasher.matches(tenantId, request.getPassword(), user.getPassword()))
+                : passwordHasher.matches(tenantId, request.getPassword(), user.getPassword());
+
+        // Verify password on the password hashing executor; everything after it runs on the login I/O executor
+        return verified
+                .thenComposeAsync(matched -> {
+                    if (!matched) {
+                        loginRateLimiter.recordFailure(tenantId, identifier, clientIp);
+                        throw new BusinessException(ErrorCode.INVALID_CREDENTIALS);
+                    }
+                    loginRateLimiter.reset(tenantId, identifier, clientIp);
+                    if (!passwordHasher.needsRehash(user.getPassword())) {
+                        return CompletableFuture.completedFuture(completeLogin(user));
+                    }
+                    return rehash(user, request.getPassword()).thenApply(rehashed -> completeLogin(user));
+                }, loginIoExecutor);
+    }
+
+    /**
+     * Re-hash a verified password with the current algorithm and cost
+     * 使用当前算法与成本重新哈希已验证的密码；哈希队列已满时保留旧哈希，下次登录再试
+     * 仅当库中仍是校验时的旧哈希才写入，并发修改密码后不会被旧密码的新哈希覆盖
+     */
+    private CompletableFuture<User> rehash(User user, String rawPassword) {
+        return passwordHasher.encode(user.getTenantId(), rawPassword)
+                .handleAsync((encodedPassword, e) -> {
+                    if (e == null) {
+                        if (userMapper.updatePasswordIfUnchanged(user.getId(), user.getPassword(), encodedPassword) > 0) {
+                            log.info("Password re-hashed for user: {} in tenant: {}", user.getId(), user.getTenantId());
+                        } else {
+                            log.info("Skipped password re-hash for user {}: password changed concurrently", user.getId());
+                        }
+                    } else {
+                        log.debug("Skipped password re-hash for user {}: {}", user.getId(), e.getMessage());
+                    }
+                    return user;
+                }, loginIoExecutor);
+    }
+
+    /**
+     * Phase 2: load authorities, record the login and issue tokens once the password is verified
+     * 密码校验通过后从授权缓存获取角色与权限，记录登录时间并签发令牌
+     */
+    private TokenResponse completeLogin(User user) {
+        Long tenantId = user.getTenantId();
+
+        EffectiveAuthorities authorities = authorizationCache.get(tenantId, user.getId());
+        if (authorities == null) {
+            throw new BusinessException(ErrorCode.USER_NOT_FOUND);
         }
 
-        // Update last login time
-        user.setLastLoginAt(LocalDateTime.now());
-        userMapper.update(user);
+        // Last login time is written behind in batches, off the login path
+        lastLoginRecorder.record(user.getId(), Instant.now());
 
         // Generate tokens
-        String accessToken = jwtTokenProvider.generateAccessToken(user);
+        String accessToken = jwtTokenProvider.generateAccessToken(user, authorities);
         String refreshToken = jwtTokenProvider.generateRefreshToken(user);
 
         // Save refresh token to Redis (with tenant isolation)
@@ -190,9 +365,7 @@ public class AuthServiceImpl implements AuthService {
         log.info("User logged in successfully: {} in tenant: {}", user.getId(), tenantId);
 
         // Build response
-        Set<String> roles = user.getRoles().stream()
-                .map(Role::getCode)
-                .collect(Collectors.toSet());
+        Set<String> roles = authorities.getRoles();
 
         return TokenResponse.builder()
                 .accessToken(accessToken)
@@ -217,16 +390,18 @@ public class AuthServiceImpl implements AuthService {
         log.info("Refreshing token");
 
         // Validate refresh token
-        if (!jwtTokenProvider.validateRefreshToken(refreshToken)) {
+        ParsedToken parsedRefreshToken = jwtTokenProvider.parseRefreshToken(refreshToken);
+        if (parsedRefreshToken == null) {
             throw new BusinessException(ErrorCode.REFRESH_TOKEN_INVALID);
         }
 
         // Get user ID and tenant ID from token
-        Long userId = jwtTokenProvider.getUserIdFromToken(refreshToken);
-        Long tenantId = jwtTokenProvider.getTenantIdFromToken(refreshToken);
+        Long userId = parsedRefreshToken.getUserId();
+        Long tenantId = parsedRefreshToken.getTenantId();
 
-        // Verify refresh token in Redis
-        if (!tokenService.verifyRefreshToken(tenantId, userId, refreshToken)) {
+        // Verify refresh token in Redis and against user/tenant revocation
+        if (!tokenService.verifyRefreshToken(tenantId, userId, refreshToken)
+                || tokenService.isRevoked(tenantId, userId, parsedRefreshToken.getIssuedAt())) {
             throw new BusinessException(ErrorCode.REFRESH_TOKEN_INVALID);
         }
 
@@ -263,50 +438,46 @@ public class AuthServiceImpl implements AuthService {
     public void logout(String accessToken, String refreshToken) {
         log.info("User logout");
 
-        Long tenantId = null;
-        Long userId = null;
+        // Parse each token once; expired or malformed tokens are ignored
+        ParsedToken parsedAccessToken = null;
+        ParsedToken parsedRefreshToken = null;
 
-        // Extract tenantId and userId from tokens
         if (accessToken != null && !accessToken.isBlank()) {
-            try {
-                tenantId = jwtTokenProvider.getTenantIdFromToken(accessToken);
-                userId = jwtTokenProvider.getUserIdFromToken(accessToken);
-            } catch (Exception e) {
-                log.warn("Failed to extract info from access token: {}", e.getMessage());
+            parsedAccessToken = jwtTokenProvider.parseAccessToken(accessToken);
+            if (parsedAccessToken == null) {
+                log.warn("Failed to extract info from access token");
             }
         }
 
-        if (tenantId == null && refreshToken != null && !refreshToken.isBlank()) {
-            try {
-                tenantId = jwtTokenProvider.getTenantIdFromToken(refreshToken);
-                userId = jwtTokenProvider.getUserIdFromToken(refreshToken);
-            } catch (Exception e) {
-                log.warn("Failed to extract info from refresh token: {}", e.getMessage());
+        if (refreshToken != null && !refreshToken.isBlank()) {
+            parsedRefreshToken = jwtTokenProvider.parseRefreshToken(refreshToken);
+            if (parsedRefreshToken == null) {
+                log.warn("Failed to extract info from refresh token");
             }
         }
 
+        // Extract tenantId from tokens
+        Long tenantId = parsedAccessToken != null ? parsedAccessToken.getTenantId()
+                : parsedRefreshToken != null ? parsedRefreshToken.getTenantId() : null;
+
         // Validate tenantId was extracted
         if (tenantId == null) {
             throw new BusinessException(ErrorCode.UNAUTHORIZED);
         }
 
         // Add accessToken to blacklist with remaining TTL
-        if (accessToken != null && !accessToken.isBlank()) {
-            if (jwtTokenProvider.validateAccessToken(accessToken)) {
-                long remainingTTL = jwtTokenProvider.getTokenRemainingTTL(accessToken);
-                if (remainingTTL > 0) {
-                    tokenService.addToBlacklist(tenantId, accessToken, remainingTTL);
-                }
+        if (parsedAccessToken != null) {
+            long remainingTTL = parsedAccessToken.getRemainingTtlSeconds();
+            if (remainingTTL > 0) {
+                tokenService.addToBlacklist(tenantId, parsedAccessToken.getTokenId(), remainingTTL);
             }
         }
 
         // Delete refreshToken from Redis
-        if (refreshToken != null && !refreshToken.isBlank()) {
-            if (jwtTokenProvider.validateRefreshToken(refreshToken)) {
-                Long refreshUserId = jwtTokenProvider.getUserIdFromToken(refreshToken);
-                tokenService.deleteRefreshToken(tenantId, refreshUserId);
-                log.info("User logged out: tenant={}, user={}", tenantId, refreshUserId);
-            }
+        if (parsedRefreshToken != null) {
+            Long refreshUserId = parsedRefreshToken.getUserId();
+            tokenService.deleteRefreshToken(tenantId, refreshUserId);
+            log.info("User logged out: tenant={}, user={}", tenantId, refreshUserId);
         }
 
         SecurityUtils.clearAuthentication();
@@ -351,17 +522,32 @@ public class AuthServiceImpl implements AuthService {
         }
 
         // Verify old password
-        if (!passwordEncoder.matches(request.getOldPassword(), user.getPassword())) {
+        if (!await(passwordHasher.matches(tenantId, request.getOldPassword(), user.getPassword()))) {
             throw new BusinessException(ErrorCode.OLD_PASSWORD_WRONG);
         }
 
         // Update password
-        user.setPassword(passwordEncoder.encode(request.getNewPassword()));
+        user.setPassword(await(passwordHasher.encode(tenantId, request.getNewPassword())));
         userMapper.update(user);
 
         log.info("Password changed successfully for user: {} in tenant: {}", userId, tenantId);
     }
 
+    /**
+     * Wait for a hashing result, rethrowing business errors as-is
+     * 等待哈希结果，业务异常原样抛出
+     */
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
     /**
      * Map User entity to UserResponse DTO
      */
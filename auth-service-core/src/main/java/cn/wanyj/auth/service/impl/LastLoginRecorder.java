@@ -0,0 +1,170 @@
+package cn.wanyj.auth.service.impl;
+
+import cn.wanyj.auth.mapper.UserMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Last Login Recorder - 最后登录时间写回缓冲
+ * 登录成功只在内存中记录时间（同一用户合并为最新值），定期以一条批量 UPDATE 写入数据库，登录请求不再持有用户行锁
+ * 每条记录同时写入 Redis 哈希作为日志：节点崩溃后，其他节点启动或定期恢复时会补写；写入只向后推进时间，重放无副作用
+ * @author wanyj
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LastLoginRecorder {
+
+    private static final String PENDING_KEY = "last_login:pending";
+
+    // Upper bound of users per UPDATE statement
+    private static final int BATCH_SIZE = 500;
+
+    // Removes journal fields whose value is still the one that was flushed
+    private static final RedisScript<Long> DELETE_IF_UNCHANGED = new DefaultRedisScript<>("""
+            local removed = 0
+            for i = 1, #ARGV, 2 do
+              if redis.call('HGET', KEYS[1], ARGV[i]) == ARGV[i + 1] then
+                removed = removed + redis.call('HDEL', KEYS[1], ARGV[i])
+              end
+            end
+            return removed
+            """, Long.class);
+
+    private final UserMapper userMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Value("${login.last-login.recover-interval:300000}")
+    private long recoverInterval;
+
+    // userId -> last login (epoch millis), not yet written to the database
+    private final Map<Long, Long> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Record a successful login
+     * 记录登录时间（写回缓冲）
+     */
+    public void record(Long userId, Instant loginAt) {
+        long millis = loginAt.toEpochMilli();
+        pending.merge(userId, millis, Math::max);
+        try {
+            stringRedisTemplate.opsForHash().put(PENDING_KEY, String.valueOf(userId), String.valueOf(millis));
+        } catch (DataAccessException e) {
+            // Still flushed from memory; only lost if this node also crashes before the next flush
+            log.warn("Failed to journal last login of user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    /**
+     * Write buffered login times to the database
+     * 定期批量写入数据库
+     */
+    @Scheduled(fixedDelayString = "${login.last-login.flush-interval:5000}")
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> snapshot = new HashMap<>(pending);
+        List<Map.Entry<Long, Long>> entries = new ArrayList<>(snapshot.entrySet());
+        for (int from = 0; from < entries.size(); from += BATCH_SIZE) {
+            List<Map.Entry<Long, Long>> batch = entries.subList(from, Math.min(from + BATCH_SIZE, entries.size()));
+            if (!write(batch)) {
+                // Keep the rest buffered and retry on the next flush
+                return;
+            }
+            // A newer login recorded meanwhile stays buffered
+            batch.forEach(entry -> pending.remove(entry.getKey(), entry.getValue()));
+            clearJournal(batch);
+        }
+    }
+
+    /**
+     * Replay journal entries left behind by nodes that stopped without flushing
+     * 启动时及定期恢复日志中滞留的记录（超过一个恢复周期仍未清除，说明写入它的节点已停止）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverOnStartup() {
+        recover(0);
+    }
+
+    @Scheduled(fixedDelayString = "${login.last-login.recover-interval:300000}",
+            initialDelayString = "${login.last-login.recover-interval:300000}")
+    public void recoverStale() {
+        recover(recoverInterval);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void recover(long minAgeMillis) {
+        long cutoff = System.currentTimeMillis() - minAgeMillis;
+        try {
+            Map<Object, Object> journal = stringRedisTemplate.opsForHash().entries(PENDING_KEY);
+            int recovered = 0;
+            for (Map.Entry<Object, Object> entry : journal.entrySet()) {
+                long millis = Long.parseLong(String.valueOf(entry.getValue()));
+                if (millis <= cutoff) {
+                    pending.merge(Long.valueOf(String.valueOf(entry.getKey())), millis, Math::max);
+                    recovered++;
+                }
+            }
+            if (recovered > 0) {
+                log.info("Recovered {} buffered last-login times from the journal", recovered);
+                flush();
+            }
+        } catch (DataAccessException e) {
+            log.warn("Failed to recover last-login journal: {}", e.getMessage());
+        }
+    }
+
+    private boolean write(List<Map.Entry<Long, Long>> batch) {
+        Map<Long, LocalDateTime> lastLogins = new LinkedHashMap<>();
+        for (Map.Entry<Long, Long> entry : batch) {
+            lastLogins.put(entry.getKey(),
+                    LocalDateTime.ofInstant(Instant.ofEpochMilli(entry.getValue()), ZoneId.systemDefault()));
+        }
+        try {
+            userMapper.updateLastLoginAtBatch(lastLogins);
+            return true;
+        } catch (DataAccessException e) {
+            log.warn("Failed to flush {} last-login times: {}", batch.size(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void clearJournal(List<Map.Entry<Long, Long>> batch) {
+        List<String> args = new ArrayList<>(batch.size() * 2);
+        for (Map.Entry<Long, Long> entry : batch) {
+            args.add(String.valueOf(entry.getKey()));
+            args.add(String.valueOf(entry.getValue()));
+        }
+        try {
+            stringRedisTemplate.execute(DELETE_IF_UNCHANGED, List.of(PENDING_KEY), args.toArray());
+        } catch (DataAccessException e) {
+            // Entries are replayed later; the update never moves a timestamp backwards
+            log.warn("Failed to clear last-login journal: {}", e.getMessage());
+        }
+    }
+}
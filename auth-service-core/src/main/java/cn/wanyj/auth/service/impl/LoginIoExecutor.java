@@ -0,0 +1,69 @@
+package cn.wanyj.auth.service.impl;
+
+import cn.wanyj.auth.exception.BusinessException;
+import cn.wanyj.auth.exception.ErrorCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Login I/O Executor - 登录/注册 I/O 线程池
+ * 密码哈希完成后的步骤（注册事务、签发令牌、重新哈希写回、限流计数等数据库与 Redis 调用）在此线程池上执行
+ * 密码哈希线程只执行 encode / matches，不会因等待行锁或 Redis 而阻塞，其他租户的登录不受影响
+ * 队列有界，满载时以 429 快速失败
+ * @author wanyj
+ */
+@Slf4j
+@Component
+public class LoginIoExecutor implements Executor {
+
+    private final ExecutorService executor;
+
+    public LoginIoExecutor(MeterRegistry meterRegistry,
+                           @Value("${login.io-executor.core-size:16}") int coreSize,
+                           @Value("${login.io-executor.max-size:32}") int maxSize,
+                           @Value("${login.io-executor.queue-capacity:500}") int queueCapacity) {
+        Counter rejected = Counter.builder("login.io.rejected")
+                .description("Login continuations rejected because the I/O executor queue was full")
+                .register(meterRegistry);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(coreSize, maxSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("login-io-"),
+                (runnable, rejectingPool) -> {
+                    rejected.increment();
+                    throw new BusinessException(ErrorCode.TOO_MANY_REQUESTS);
+                });
+        this.executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, "login.io", Tags.empty());
+        log.info("Login I/O executor started ({} threads, queue {})", maxSize, queueCapacity);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        executor.execute(command);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package cn.wanyj.auth.service.impl;
+
+import cn.wanyj.auth.entity.User;
+import cn.wanyj.auth.exception.BusinessException;
+import cn.wanyj.auth.exception.ErrorCode;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Keyset pagination cursor: (created_at, id) of the last row of a page
+ * 分页游标：上一页最后一条的 (created_at, id)，以 Base64URL 编码
+ * id 区分 created_at 相同的行，翻页时不会跳过或重复
+ * @author wanyj
+ */
+record PageCursor(LocalDateTime createdAt, Long id) {
+
+    static PageCursor of(User user) {
+        return new PageCursor(user.getCreatedAt(), user.getId());
+    }
+
+    static PageCursor decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf(',');
+            return new PageCursor(LocalDateTime.parse(value.substring(0, separator)),
+                    Long.valueOf(value.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new BusinessException(ErrorCode.BAD_REQUEST, "无效的分页游标");
+        }
+    }
+
+    String encode() {
+        String value = createdAt + "," + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,5 +1,6 @@
 package cn.wanyj.auth.service.impl;
 
+import cn.wanyj.auth.security.RbacEngine;
 import cn.wanyj.auth.security.SecurityUtils;
 import cn.wanyj.auth.dto.response.PermissionResponse;
 import cn.wanyj.auth.entity.Permission;
@@ -8,6 +9,7 @@ import cn.wanyj.auth.exception.ErrorCode;
 import cn.wanyj.auth.mapper.PermissionMapper;
 import cn.wanyj.auth.mapper.RolePermissionMapper;
 import cn.wanyj.auth.service.PermissionService;
+import cn.wanyj.auth.service.TokenService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -28,6 +30,8 @@ public class PermissionServiceImpl implements PermissionService {
 
     private final PermissionMapper permissionMapper;
     private final RolePermissionMapper rolePermissionMapper;
+    private final TokenService tokenService;
+    private final RbacEngine rbacEngine;
 
     @Override
     public List<PermissionResponse> getAllPermissions() {
@@ -66,6 +70,7 @@ public class PermissionServiceImpl implements PermissionService {
                 .build();
 
         permissionMapper.insert(permission);
+        rbacEngine.refresh(tenantId);
 
         log.info("Permission created successfully: {} in tenant: {}", permission.getId(), tenantId);
         return mapToPermissionResponse(permission);
@@ -87,6 +92,10 @@ public class PermissionServiceImpl implements PermissionService {
         // Delete permission
         permissionMapper.deleteById(id);
 
+        // Permission claims in existing tokens are out of date
+        tokenService.markTenantClaimsStale(permission.getTenantId());
+        rbacEngine.refresh(permission.getTenantId());
+
         log.info("Permission deleted successfully: {}", id);
     }
 
@@ -1,5 +1,6 @@
 package cn.wanyj.auth.service.impl;
 
+import cn.wanyj.auth.security.RbacEngine;
 import cn.wanyj.auth.security.SecurityUtils;
 import cn.wanyj.auth.dto.request.AssignPermissionsRequest;
 import cn.wanyj.auth.dto.response.RoleResponse;
@@ -11,6 +12,7 @@ import cn.wanyj.auth.mapper.PermissionMapper;
 import cn.wanyj.auth.mapper.RoleMapper;
 import cn.wanyj.auth.mapper.RolePermissionMapper;
 import cn.wanyj.auth.service.RoleService;
+import cn.wanyj.auth.service.TokenService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -34,6 +36,8 @@ public class RoleServiceImpl implements RoleService {
     private final RoleMapper roleMapper;
     private final PermissionMapper permissionMapper;
     private final RolePermissionMapper rolePermissionMapper;
+    private final TokenService tokenService;
+    private final RbacEngine rbacEngine;
 
     @Override
     public List<RoleResponse> getAllRoles() {
@@ -93,6 +97,7 @@ public class RoleServiceImpl implements RoleService {
                 .build();
 
         roleMapper.insert(role);
+        rbacEngine.refresh(tenantId);
 
         log.info("Role created successfully: {} in tenant: {}", role.getId(), tenantId);
         return mapToRoleResponse(role);
@@ -134,6 +139,10 @@ public class RoleServiceImpl implements RoleService {
         // Delete role
         roleMapper.deleteById(id);
 
+        // Role claims in existing tokens are out of date
+        tokenService.markTenantClaimsStale(role.getTenantId());
+        rbacEngine.refresh(role.getTenantId());
+
         log.info("Role deleted successfully: {}", id);
     }
 
@@ -161,6 +170,10 @@ public class RoleServiceImpl implements RoleService {
             roleMapper.insertRolePermission(roleId, permissionId, role.getTenantId());
         }
 
+        // Permission claims in existing tokens are out of date
+        tokenService.markTenantClaimsStale(role.getTenantId());
+        rbacEngine.refresh(role.getTenantId());
+
         log.info("Permissions assigned successfully to role: {}", roleId);
     }
 
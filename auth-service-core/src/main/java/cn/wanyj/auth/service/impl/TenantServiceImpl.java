@@ -1,20 +1,29 @@
 package cn.wanyj.auth.service.impl;
 
+import cn.wanyj.auth.entity.LoginIdentifier;
 import cn.wanyj.auth.entity.Permission;
 import cn.wanyj.auth.entity.Role;
 import cn.wanyj.auth.entity.Tenant;
 import cn.wanyj.auth.entity.User;
 import cn.wanyj.auth.exception.BusinessException;
 import cn.wanyj.auth.exception.ErrorCode;
+import cn.wanyj.auth.mapper.LoginIdentifierMapper;
 import cn.wanyj.auth.mapper.PermissionMapper;
 import cn.wanyj.auth.mapper.RoleMapper;
 import cn.wanyj.auth.mapper.RolePermissionMapper;
 import cn.wanyj.auth.mapper.TenantMapper;
 import cn.wanyj.auth.mapper.UserMapper;
 import cn.wanyj.auth.mapper.UserRoleMapper;
+import cn.wanyj.auth.security.AuthorizationCache;
+import cn.wanyj.auth.security.LoginIdentifierFilter;
+import cn.wanyj.auth.security.LoginNegativeCache;
+import cn.wanyj.auth.security.RbacEngine;
+import cn.wanyj.auth.security.TenantRegistry;
 import cn.wanyj.auth.service.TenantService;
+import cn.wanyj.auth.service.TokenService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -36,17 +45,20 @@ public class TenantServiceImpl implements TenantService {
     private final RoleMapper roleMapper;
     private final PermissionMapper permissionMapper;
     private final UserMapper userMapper;
+    private final LoginIdentifierMapper loginIdentifierMapper;
     private final UserRoleMapper userRoleMapper;
     private final RolePermissionMapper rolePermissionMapper;
     private final PasswordEncoder passwordEncoder;
+    private final TokenService tokenService;
+    private final AuthorizationCache authorizationCache;
+    private final RbacEngine rbacEngine;
+    private final LoginNegativeCache loginNegativeCache;
+    private final LoginIdentifierFilter loginIdentifierFilter;
+    private final TenantRegistry tenantRegistry;
 
     @Override
     public boolean isValidTenant(Long tenantId) {
-        if (tenantId == null) {
-            return false;
-        }
-        Tenant tenant = tenantMapper.findById(tenantId);
-        return tenant != null && tenant.isValid();
+        return tenantRegistry.isValid(tenantId);
     }
 
     @Override
@@ -54,16 +66,13 @@ public class TenantServiceImpl implements TenantService {
         if (tenantCode == null || tenantCode.isBlank()) {
             return null;
         }
-        Tenant tenant = tenantMapper.findByCode(tenantCode);
+        Tenant tenant = tenantRegistry.getByCode(tenantCode);
         return tenant != null ? tenant.getId() : null;
     }
 
     @Override
     public Tenant getTenantById(Long tenantId) {
-        if (tenantId == null) {
-            return null;
-        }
-        return tenantMapper.findById(tenantId);
+        return copy(tenantRegistry.get(tenantId));
     }
 
     @Override
@@ -71,7 +80,7 @@ public class TenantServiceImpl implements TenantService {
         if (tenantCode == null || tenantCode.isBlank()) {
             return null;
         }
-        return tenantMapper.findByCode(tenantCode);
+        return copy(tenantRegistry.getByCode(tenantCode));
     }
 
     @Override
@@ -79,7 +88,7 @@ public class TenantServiceImpl implements TenantService {
         if (tenantCode == null || tenantCode.isBlank()) {
             return false;
         }
-        return tenantMapper.existsByCode(tenantCode);
+        return tenantRegistry.getByCode(tenantCode) != null;
     }
 
     @Override
@@ -98,7 +107,13 @@ public class TenantServiceImpl implements TenantService {
             tenant.setMaxUsers(Integer.MAX_VALUE);
         }
 
-        tenantMapper.insert(tenant);
+        // 注册表可能尚未收到其他节点新建租户的通知，最终由唯一键保证编码不重复
+        try {
+            tenantMapper.insert(tenant);
+        } catch (DuplicateKeyException e) {
+            throw new BusinessException(ErrorCode.TENANT_CODE_EXISTS);
+        }
+        tenantRegistry.refresh(tenant.getId());
 
         // 初始化默认角色和权限
         initializeDefaultRolesAndPermissions(tenant.getId());
@@ -122,6 +137,12 @@ public class TenantServiceImpl implements TenantService {
         }
 
         tenantMapper.update(tenant);
+        tenantRegistry.refresh(tenant.getId());
+
+        // 租户被禁用时使其已签发的令牌全部失效
+        if (tenant.getStatus() != null && tenant.getStatus() == 0 && !Integer.valueOf(0).equals(existing.getStatus())) {
+            tokenService.revokeTenantTokens(tenant.getId());
+        }
         log.info("Updated tenant: id={}, code={}", tenant.getId(), tenant.getTenantCode());
         return tenant;
     }
@@ -155,28 +176,41 @@ public class TenantServiceImpl implements TenantService {
         // 4. 删除角色
         roleMapper.deleteByTenantId(tenantId);
 
-        // 5. 删除用户
+        // 5. 删除用户及其登录标识
+        loginIdentifierMapper.deleteByTenantId(tenantId);
         userMapper.deleteByTenantId(tenantId);
 
         // 6. 最后删除租户
         tenantMapper.deleteById(tenantId);
 
+        // 7. 使租户下已签发的令牌和权限缓存全部失效
+        tokenService.revokeTenantTokens(tenantId);
+        authorizationCache.invalidateTenant(tenantId);
+        loginIdentifierFilter.invalidateTenant(tenantId);
+        rbacEngine.refresh(tenantId);
+        tenantRegistry.refresh(tenantId);
+
         log.info("Deleted tenant and all related data: id={}", tenantId);
     }
 
     @Override
     public List<Tenant> getAllTenants() {
-        return tenantMapper.findAll();
+        return tenantRegistry.getAll().stream()
+                .map(this::copy)
+                .toList();
     }
 
     @Override
     public List<Tenant> getActiveTenants() {
-        return tenantMapper.findActive();
+        return tenantRegistry.getAll().stream()
+                .filter(Tenant::isValid)
+                .map(this::copy)
+                .toList();
     }
 
     @Override
     public boolean isUserLimitReached(Long tenantId) {
-        Tenant tenant = getTenantById(tenantId);
+        Tenant tenant = tenantRegistry.get(tenantId);
         if (tenant == null) {
             return true;
         }
@@ -186,8 +220,16 @@ public class TenantServiceImpl implements TenantService {
             return false; // 无限制
         }
 
-        long currentUserCount = tenantMapper.countUsersByTenantId(tenantId);
-        return currentUserCount >= maxUsers;
+        // 读取计数列，不再全量 COUNT(*)
+        Long currentUserCount = tenantMapper.findUserCount(tenantId);
+        return currentUserCount != null && currentUserCount >= maxUsers;
+    }
+
+    @Override
+    public void reserveUserSlot(Long tenantId) {
+        if (tenantMapper.reserveUserSlot(tenantId) == 0) {
+            throw new BusinessException(ErrorCode.TENANT_USER_LIMIT_REACHED);
+        }
     }
 
     @Override
@@ -276,6 +318,7 @@ public class TenantServiceImpl implements TenantService {
         if (userReadPermission != null) {
             roleMapper.insertRolePermission(userRole.getId(), userReadPermission.getId(), tenantId);
         }
+        rbacEngine.refresh(tenantId);
 
         // 5. 创建租户管理员用户
         // 检查管理员用户是否已存在
@@ -291,6 +334,10 @@ public class TenantServiceImpl implements TenantService {
                     .build();
 
             userMapper.insert(adminUser);
+            tenantMapper.adjustUserCount(tenantId, 1);
+            List<LoginIdentifier> identifiers = LoginIdentifier.of(adminUser);
+            loginIdentifierMapper.insertBatch(identifiers);
+            loginNegativeCache.invalidate(tenantId, identifiers.stream().map(LoginIdentifier::getNormalizedValue).toList());
 
             // 分配管理员角色给管理员用户
             userMapper.insertUserRole(adminUser.getId(), adminRole.getId(), tenantId);
@@ -307,4 +354,24 @@ public class TenantServiceImpl implements TenantService {
 
         log.info("Initialized default roles and permissions for tenant: {}", tenantId);
     }
+
+    /**
+     * 复制注册表中的租户，调用方可以修改返回的对象
+     */
+    private Tenant copy(Tenant tenant) {
+        if (tenant == null) {
+            return null;
+        }
+        return Tenant.builder()
+                .id(tenant.getId())
+                .tenantCode(tenant.getTenantCode())
+                .tenantName(tenant.getTenantName())
+                .status(tenant.getStatus())
+                .expiredAt(tenant.getExpiredAt())
+                .maxUsers(tenant.getMaxUsers())
+                .isPlatform(tenant.getIsPlatform())
+                .createdAt(tenant.getCreatedAt())
+                .updatedAt(tenant.getUpdatedAt())
+                .build();
+    }
 }
@@ -1,11 +1,14 @@
 package cn.wanyj.auth.service.impl;
 
+import cn.wanyj.auth.security.BlacklistBloomFilter;
+import cn.wanyj.auth.security.RevocationWatermarks;
 import cn.wanyj.auth.service.TokenService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -18,11 +21,13 @@ import java.util.concurrent.TimeUnit;
 public class TokenServiceImpl implements TokenService {
 
     private final RedisTemplate<String, Object> redisTemplate;
+    private final BlacklistBloomFilter blacklistBloomFilter;
+    private final RevocationWatermarks revocationWatermarks;
 
     // Redis Key 格式（带租户隔离）
     // refresh_token:{tenant_id}:{user_id}
     private static final String REFRESH_TOKEN_PREFIX = "refresh_token:";
-    // blacklist:{tenant_id}:{token}
+    // blacklist:{tenant_id}:{jti}（旧令牌为 blacklist:{tenant_id}:sha256:{digest}）
     private static final String BLACKLIST_PREFIX = "blacklist:";
     private static final long REFRESH_TOKEN_TTL_DAYS = 7;
 
@@ -54,16 +59,31 @@ public class TokenServiceImpl implements TokenService {
     }
 
     @Override
-    public void addToBlacklist(Long tenantId, String token, long ttl) {
-        String key = BLACKLIST_PREFIX + tenantId + ":" + token;
+    public void addToBlacklist(Long tenantId, String tokenId, long ttl) {
+        String key = BLACKLIST_PREFIX + tenantId + ":" + tokenId;
         redisTemplate.opsForValue().set(key, "1", ttl, TimeUnit.SECONDS);
-        log.info("Added token to blacklist: tenant:{}, token:{}...", tenantId, token.substring(0, Math.min(20, token.length())));
+        blacklistBloomFilter.publish(key);
+        log.info("Added token to blacklist: tenant:{}, tokenId:{}", tenantId, tokenId);
     }
 
     @Override
-    public boolean isBlacklisted(Long tenantId, String token) {
+    public boolean isBlacklisted(Long tenantId, String tokenId) {
         // Check blacklist with tenant isolation
-        String key = BLACKLIST_PREFIX + tenantId + ":" + token;
+        return existsInBlacklist(BLACKLIST_PREFIX + tenantId + ":" + tokenId);
+    }
+
+    @Override
+    public boolean isLegacyBlacklisted(Long tenantId, String token) {
+        // Entries written before jti was introduced: blacklist:{tenant_id}:{token}
+        return existsInBlacklist(BLACKLIST_PREFIX + tenantId + ":" + token);
+    }
+
+    private boolean existsInBlacklist(String key) {
+        // Definitely not blacklisted, skip the Redis round trip
+        if (!blacklistBloomFilter.mightContain(key)) {
+            return false;
+        }
+
         Boolean exists = redisTemplate.hasKey(key);
         return exists != null && exists;
     }
@@ -73,10 +93,35 @@ public class TokenServiceImpl implements TokenService {
         // Delete refresh token
         deleteRefreshToken(tenantId, userId);
 
-        // Note: Access tokens in blacklist will expire naturally based on TTL
-        // To actively remove them, we would need to scan the blacklist
-        // For now, we just rely on TTL expiration
+        // Access tokens issued before now are rejected by the user watermark
+        revocationWatermarks.revokeUser(tenantId, userId);
 
         log.info("Revoked all tokens for tenant:{}, user:{}", tenantId, userId);
     }
+
+    @Override
+    public void revokeTenantTokens(Long tenantId) {
+        revocationWatermarks.revokeTenant(tenantId);
+        log.info("Revoked all tokens for tenant:{}", tenantId);
+    }
+
+    @Override
+    public boolean isRevoked(Long tenantId, Long userId, Instant issuedAt) {
+        return revocationWatermarks.isRevoked(tenantId, userId, issuedAt);
+    }
+
+    @Override
+    public void markUserClaimsStale(Long tenantId, Long userId) {
+        revocationWatermarks.markUserClaimsStale(tenantId, userId);
+    }
+
+    @Override
+    public void markTenantClaimsStale(Long tenantId) {
+        revocationWatermarks.markTenantClaimsStale(tenantId);
+    }
+
+    @Override
+    public boolean isClaimsStale(Long tenantId, Long userId, Instant issuedAt) {
+        return revocationWatermarks.isClaimsStale(tenantId, userId, issuedAt);
+    }
 }
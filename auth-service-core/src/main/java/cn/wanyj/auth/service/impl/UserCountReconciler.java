@@ -0,0 +1,53 @@
+package cn.wanyj.auth.service.impl;
+
+import cn.wanyj.auth.entity.Tenant;
+import cn.wanyj.auth.mapper.TenantMapper;
+import cn.wanyj.auth.security.TenantRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * User Count Reconciler - 租户用户计数对账
+ * tenant.user_count 在新增/删除用户的事务内增减；本任务定期以 COUNT(*) 校正计数，修复绕过应用直接改库造成的偏差
+ * 每个租户在锁定租户行后再计数，并发的注册与删除要么在计数前提交、要么在校正后再增减，不会丢失
+ * @author wanyj
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserCountReconciler {
+
+    private final TenantMapper tenantMapper;
+    private final TenantRegistry tenantRegistry;
+    private final TransactionTemplate transactionTemplate;
+
+    @Scheduled(fixedDelayString = "${tenant.user-count.reconcile-interval:3600000}",
+            initialDelayString = "${tenant.user-count.reconcile-interval:3600000}")
+    public void reconcile() {
+        for (Tenant tenant : tenantRegistry.getAll()) {
+            try {
+                reconcile(tenant.getId());
+            } catch (Exception e) {
+                log.warn("Failed to reconcile user count of tenant {}: {}", tenant.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private void reconcile(Long tenantId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            // The lock comes first so the count below reads after concurrent registrations commit
+            if (tenantMapper.lockById(tenantId) == null) {
+                return;
+            }
+            Long counted = tenantMapper.findUserCount(tenantId);
+            long actual = tenantMapper.countUsersByTenantId(tenantId);
+            if (counted == null || counted != actual) {
+                tenantMapper.updateUserCount(tenantId, actual);
+                log.warn("Corrected user count of tenant {}: {} -> {}", tenantId, counted, actual);
+            }
+        });
+    }
+}
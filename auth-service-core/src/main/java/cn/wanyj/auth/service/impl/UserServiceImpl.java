@@ -1,5 +1,7 @@
 package cn.wanyj.auth.service.impl;
 
+import cn.wanyj.auth.security.AuthorizationCache;
+import cn.wanyj.auth.security.EffectiveAuthorities;
 import cn.wanyj.auth.security.SecurityUtils;
 import cn.wanyj.auth.dto.request.AssignRolesRequest;
 import cn.wanyj.auth.dto.response.PageResponse;
@@ -9,9 +11,12 @@ import cn.wanyj.auth.entity.User;
 import cn.wanyj.auth.entity.UserRole;
 import cn.wanyj.auth.exception.BusinessException;
 import cn.wanyj.auth.exception.ErrorCode;
+import cn.wanyj.auth.mapper.LoginIdentifierMapper;
 import cn.wanyj.auth.mapper.RoleMapper;
+import cn.wanyj.auth.mapper.TenantMapper;
 import cn.wanyj.auth.mapper.UserMapper;
 import cn.wanyj.auth.mapper.UserRoleMapper;
+import cn.wanyj.auth.service.TokenService;
 import cn.wanyj.auth.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -21,6 +26,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -33,9 +39,18 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
 
+    /**
+     * Upper bound for a requested page size - 单页最大条数
+     */
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final UserMapper userMapper;
+    private final LoginIdentifierMapper loginIdentifierMapper;
+    private final TenantMapper tenantMapper;
     private final RoleMapper roleMapper;
     private final UserRoleMapper userRoleMapper;
+    private final TokenService tokenService;
+    private final AuthorizationCache authorizationCache;
 
     @Override
     public UserResponse getUserById(Long id) {
@@ -68,35 +83,44 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    public PageResponse<UserResponse> searchUsers(String keyword, Integer page, Integer size) {
+    public PageResponse<UserResponse> searchUsers(String keyword, Integer page, Integer size, String cursor, boolean withTotal) {
         Long tenantId = SecurityUtils.getCurrentTenantId();
-        log.info("searchUsers called with: keyword={}, page={}, size={}, tenantId={}", keyword, page, size, tenantId);
-        List<User> users;
-        long total;
-
-        if (keyword != null && !keyword.trim().isEmpty()) {
-            users = userMapper.findByKeyword(keyword, tenantId);
-            total = userMapper.countByKeyword(keyword, tenantId);
-        } else {
-            // Get all users with roles for the tenant when no keyword is provided
-            users = userMapper.findAllByTenantIdWithRoles(tenantId);
-            total = userMapper.countAllByTenantId(tenantId);
+        log.info("searchUsers called with: keyword={}, page={}, size={}, cursor={}, tenantId={}",
+                keyword, page, size, cursor, tenantId);
+        String filter = keyword != null && !keyword.trim().isEmpty() ? keyword : null;
+        PageCursor after = cursor != null && !cursor.isBlank() ? PageCursor.decode(cursor) : null;
+        int limit = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        int offset = after == null ? (Math.max(page, 1) - 1) * limit : 0;
+
+        // Paged in SQL; one extra row tells whether another page follows
+        List<User> users = userMapper.findPage(tenantId, filter,
+                after != null ? after.createdAt() : null, after != null ? after.id() : null, offset, limit + 1);
+        boolean hasMore = users.size() > limit;
+        if (hasMore) {
+            users = users.subList(0, limit);
         }
 
-        log.info("Found {} users for tenantId={}, total={}", users.size(), tenantId, total);
+        // Roles of this page only (one user_role IN query for users not cached yet)
+        Map<Long, EffectiveAuthorities> authorities = users.isEmpty()
+                ? Map.of() : authorizationCache.getAll(tenantId, users);
 
-        // Apply pagination
-        int start = (page - 1) * size;
-        int end = Math.min(start + size, users.size());
-        List<User> pagedUsers = users.subList(start, end);
+        // Total is optional: the tenant's user counter without a keyword, a COUNT with one
+        Long total = null;
+        if (withTotal) {
+            total = filter != null ? userMapper.countByKeyword(filter, tenantId) : tenantMapper.findUserCount(tenantId);
+        }
+
+        log.info("Found {} users for tenantId={}, total={}", users.size(), tenantId, total);
 
         return PageResponse.<UserResponse>builder()
                 .total(total)
                 .page(page)
-                .size(size)
-                .items(pagedUsers.stream()
-                        .map(this::mapToSimpleUserResponse)
+                .size(limit)
+                .items(users.stream()
+                        .map(user -> mapToSimpleUserResponse(user, authorities.containsKey(user.getId())
+                                ? authorities.get(user.getId()).getRoles() : Set.of()))
                         .collect(Collectors.toList()))
+                .nextCursor(hasMore ? PageCursor.of(users.get(users.size() - 1)).encode() : null)
                 .build();
     }
 
@@ -124,6 +148,10 @@ public class UserServiceImpl implements UserService {
             userMapper.insertUserRole(userId, roleId, role.getTenantId());
         }
 
+        // Role claims in existing tokens are out of date
+        tokenService.markUserClaimsStale(user.getTenantId(), userId);
+        authorizationCache.invalidateUser(user.getTenantId(), userId);
+
         log.info("Roles assigned successfully to user: {}", userId);
     }
 
@@ -140,6 +168,12 @@ public class UserServiceImpl implements UserService {
         user.setStatus(status);
         user.setUpdatedAt(LocalDateTime.now());
         userMapper.update(user);
+        authorizationCache.invalidateUser(user.getTenantId(), userId);
+
+        // Disabled user: invalidate outstanding tokens
+        if (status != null && status == 0) {
+            tokenService.revokeAllTokens(user.getTenantId(), userId);
+        }
 
         log.info("User status updated successfully: {}", userId);
     }
@@ -157,8 +191,15 @@ public class UserServiceImpl implements UserService {
         // Delete user roles first
         userMapper.deleteUserRolesByUserId(userId);
 
-        // Delete user
-        userMapper.deleteById(userId);
+        // Delete user and its login identifiers
+        loginIdentifierMapper.deleteByUserId(userId);
+        if (userMapper.deleteById(userId) > 0) {
+            tenantMapper.adjustUserCount(user.getTenantId(), -1);
+        }
+
+        // Invalidate outstanding tokens
+        tokenService.revokeAllTokens(user.getTenantId(), userId);
+        authorizationCache.invalidateUser(user.getTenantId(), userId);
 
         log.info("User deleted successfully: {}", userId);
     }
@@ -196,13 +237,7 @@ public class UserServiceImpl implements UserService {
     /**
      * Map User entity to simplified UserResponse DTO (for list view)
      */
-    private UserResponse mapToSimpleUserResponse(User user) {
-        Set<String> roles = user.getRoles() != null ?
-                user.getRoles().stream()
-                        .map(Role::getCode)
-                        .collect(Collectors.toSet()) :
-                new HashSet<>();
-
+    private UserResponse mapToSimpleUserResponse(User user, Set<String> roles) {
         return UserResponse.builder()
                 .id(user.getId())
                 .tenantId(user.getTenantId())
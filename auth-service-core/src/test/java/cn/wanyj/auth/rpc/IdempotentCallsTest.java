@@ -0,0 +1,113 @@
+package cn.wanyj.auth.rpc;
+
+import cn.wanyj.auth.api.protobuf.AuthResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * IdempotentCalls tests - RPC 幂等调用登记测试
+ * 使用 IdempotencyFilter 的判定：确定结果被重放，暂时性失败与异常不保留，重试会重新执行
+ * @author wanyj
+ */
+class IdempotentCallsTest {
+
+    private static final String KEY = "AuthRpcServiceProtobuf.authenticate:key-1:digest";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final IdempotentCalls calls = new IdempotentCalls(meterRegistry, 1000, 30_000);
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @Test
+    void retriedTransientFailureRunsAgain() throws Exception {
+        AuthResult throttled = AuthResult.newBuilder()
+                .setSuccess(false)
+                .setMessage("请求过多，请稍后重试")
+                .setRetryable(true)
+                .build();
+
+        assertEquals(throttled, execute(throttled).get(5, TimeUnit.SECONDS));
+        AuthResult success = AuthResult.newBuilder().setSuccess(true).setUserId(1L).build();
+        assertEquals(success, execute(success).get(5, TimeUnit.SECONDS));
+
+        assertEquals(2, executions.get());
+        assertEquals(0.0, replayed());
+    }
+
+    @Test
+    void definitiveFailureIsReplayed() throws Exception {
+        AuthResult wrongPassword = AuthResult.newBuilder()
+                .setSuccess(false)
+                .setMessage("用户名或密码错误")
+                .build();
+
+        execute(wrongPassword).get(5, TimeUnit.SECONDS);
+        Object replay = execute(AuthResult.newBuilder().setSuccess(true).build()).get(5, TimeUnit.SECONDS);
+
+        assertSame(wrongPassword, replay);
+        assertEquals(1, executions.get());
+        assertEquals(1.0, replayed());
+    }
+
+    @Test
+    void successIsReplayed() throws Exception {
+        AuthResult success = AuthResult.newBuilder().setSuccess(true).setUserId(1L).build();
+
+        execute(success).get(5, TimeUnit.SECONDS);
+        assertSame(success, execute(AuthResult.getDefaultInstance()).get(5, TimeUnit.SECONDS));
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void failedCallRunsAgain() throws Exception {
+        CompletableFuture<Object> failed = calls.execute(KEY, () -> {
+            executions.incrementAndGet();
+            return CompletableFuture.failedFuture(new IllegalStateException("redis down"));
+        }, IdempotencyFilter::isDefinitive);
+        assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+
+        AuthResult success = AuthResult.newBuilder().setSuccess(true).build();
+        assertEquals(success, execute(success).get(5, TimeUnit.SECONDS));
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void concurrentRetryJoinsInFlightCallButNotItsTransientResult() throws Exception {
+        CompletableFuture<Object> inFlight = new CompletableFuture<>();
+        CompletableFuture<Object> first = calls.execute(KEY, () -> {
+            executions.incrementAndGet();
+            return inFlight;
+        }, IdempotencyFilter::isDefinitive);
+        CompletableFuture<Object> joined = execute(AuthResult.getDefaultInstance());
+
+        AuthResult overloaded = AuthResult.newBuilder().setSuccess(false).setRetryable(true).build();
+        inFlight.complete(overloaded);
+
+        assertSame(overloaded, first.get(5, TimeUnit.SECONDS));
+        assertSame(overloaded, joined.get(5, TimeUnit.SECONDS));
+        assertEquals(1, executions.get());
+
+        AuthResult success = AuthResult.newBuilder().setSuccess(true).build();
+        assertEquals(success, execute(success).get(5, TimeUnit.SECONDS));
+        assertEquals(2, executions.get());
+    }
+
+    private CompletableFuture<Object> execute(AuthResult result) {
+        return calls.execute(KEY, () -> {
+            executions.incrementAndGet();
+            return CompletableFuture.completedFuture(result);
+        }, IdempotencyFilter::isDefinitive);
+    }
+
+    private double replayed() {
+        return meterRegistry.counter("rpc.idempotency.replayed").count();
+    }
+}
@@ -0,0 +1,137 @@
+package cn.wanyj.auth.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * BloomFilter tests - 布隆过滤器测试
+ * 黑名单过滤器与登录标识过滤器共用该实现：不得漏报，误报率接近配置值，并发读写安全
+ * @author wanyj
+ */
+class BloomFilterTest {
+
+    @Test
+    void neverReportsAddedValuesAsAbsent() {
+        for (int size : new int[]{1, 10, 1_000, 100_000}) {
+            for (double falsePositiveRate : new double[]{0.01, 0.001}) {
+                BloomFilter filter = new BloomFilter(size, falsePositiveRate);
+                for (int i = 0; i < size; i++) {
+                    filter.put(value(i));
+                }
+                for (int i = 0; i < size; i++) {
+                    assertTrue(filter.mightContain(value(i)),
+                            "false negative at size " + size + ", rate " + falsePositiveRate + ": " + value(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    void keepsNoFalseNegativesWhenOverfilled() {
+        // Tenants grow between rebuilds; an overfilled filter only reports more false positives
+        BloomFilter filter = new BloomFilter(100, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(value(i));
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain(value(i)));
+        }
+    }
+
+    @Test
+    void observedFalsePositiveRateIsNearConfigured() {
+        for (double falsePositiveRate : new double[]{0.01, 0.001}) {
+            int size = 100_000;
+            BloomFilter filter = new BloomFilter(size, falsePositiveRate);
+            for (int i = 0; i < size; i++) {
+                filter.put(value(i));
+            }
+
+            int probes = 200_000;
+            int falsePositives = 0;
+            for (int i = 0; i < probes; i++) {
+                if (filter.mightContain("absent-" + i)) {
+                    falsePositives++;
+                }
+            }
+            double observed = (double) falsePositives / probes;
+            assertTrue(observed <= falsePositiveRate * 1.5,
+                    "observed false positive rate " + observed + " for configured " + falsePositiveRate);
+        }
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        BloomFilter filter = new BloomFilter(1_000, 0.01);
+        for (int i = 0; i < 1_000; i++) {
+            assertFalse(filter.mightContain(value(i)));
+        }
+    }
+
+    @Test
+    void concurrentPutsAreAllVisible() throws Exception {
+        int writers = 8;
+        int perWriter = 20_000;
+        BloomFilter filter = new BloomFilter(writers * perWriter, 0.01);
+        ExecutorService executor = Executors.newFixedThreadPool(writers + 2);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                int offset = w * perWriter;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = offset; i < offset + perWriter; i++) {
+                        filter.put(value(i));
+                        // Bits set by other writers on the same words must not clear this one
+                        assertTrue(filter.mightContain(value(i)));
+                    }
+                    return null;
+                }));
+            }
+            // Readers run alongside the writers
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < 2; r++) {
+                readers.add(executor.submit(() -> {
+                    start.await();
+                    int i = 0;
+                    while (writing.get()) {
+                        filter.mightContain(value(i++ % (writers * perWriter)));
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            writing.set(false);
+            for (Future<?> reader : readers) {
+                reader.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (int i = 0; i < writers * perWriter; i++) {
+            assertTrue(filter.mightContain(value(i)), "lost concurrent put: " + value(i));
+        }
+    }
+
+    private static String value(int i) {
+        return "user-" + i + "@example.com";
+    }
+}
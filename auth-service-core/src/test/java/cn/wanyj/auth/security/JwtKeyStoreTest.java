@@ -0,0 +1,124 @@
+package cn.wanyj.auth.security;
+
+import cn.wanyj.auth.config.JwtSigningProperties;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * JwtKeyStore tests - JWT密钥管理测试
+ * 签名算法与配置的密钥类型必须匹配；HS256 模式下已配置的非对称密钥只用于验证
+ * @author wanyj
+ */
+class JwtKeyStoreTest {
+
+    private static final String SECRET = "Yo3bOIzQhkFc+lRvAEj90Hvx89IzgEC5FduXDPCTiB0=";
+    private static final String KID = "key-1";
+
+    @Test
+    void hs256KeepsSigningWithSecretWhenKeysAreConfigured() throws Exception {
+        KeyPair ecKeyPair = generate("EC", "secp256r1");
+        JwtKeyStore rolledBack = keyStore("HS256", ecKeyPair);
+
+        Jws<Claims> token = parse(rolledBack, sign(rolledBack));
+
+        assertNull(token.getHeader().getKeyId());
+        assertEquals("HS256", token.getHeader().getAlgorithm());
+    }
+
+    @Test
+    void hs256StillVerifiesTokensSignedWithConfiguredKeys() throws Exception {
+        KeyPair ecKeyPair = generate("EC", "secp256r1");
+        String issuedBeforeRollback = sign(keyStore("ES256", ecKeyPair));
+
+        Jws<Claims> token = parse(keyStore("HS256", ecKeyPair), issuedBeforeRollback);
+
+        assertEquals(KID, token.getHeader().getKeyId());
+    }
+
+    @Test
+    void es256SignsWithActiveKey() throws Exception {
+        JwtKeyStore keyStore = keyStore("ES256", generate("EC", "secp256r1"));
+
+        Jws<Claims> token = parse(keyStore, sign(keyStore));
+
+        assertEquals(KID, token.getHeader().getKeyId());
+        assertEquals("ES256", token.getHeader().getAlgorithm());
+    }
+
+    @Test
+    void eddsaSignsWithActiveKey() throws Exception {
+        JwtKeyStore keyStore = keyStore("EdDSA", generate("Ed25519", null));
+
+        Jws<Claims> token = parse(keyStore, sign(keyStore));
+
+        assertEquals(KID, token.getHeader().getKeyId());
+        assertEquals("EdDSA", token.getHeader().getAlgorithm());
+    }
+
+    @Test
+    void rejectsEcKeyForEddsa() throws Exception {
+        KeyPair ecKeyPair = generate("EC", "secp256r1");
+
+        assertThrows(IllegalStateException.class, () -> keyStore("EdDSA", ecKeyPair));
+    }
+
+    @Test
+    void rejectsEd25519KeyForEs256() throws Exception {
+        KeyPair edKeyPair = generate("Ed25519", null);
+
+        assertThrows(IllegalStateException.class, () -> keyStore("ES256", edKeyPair));
+    }
+
+    @Test
+    void rejectsNonP256KeyForEs256() throws Exception {
+        KeyPair p384KeyPair = generate("EC", "secp384r1");
+
+        assertThrows(IllegalStateException.class, () -> keyStore("ES256", p384KeyPair));
+    }
+
+    private static JwtKeyStore keyStore(String algorithm, KeyPair keyPair) {
+        JwtSigningProperties.KeyEntry entry = new JwtSigningProperties.KeyEntry();
+        entry.setKid(KID);
+        entry.setPrivateKey(Base64.getEncoder().encodeToString(keyPair.getPrivate().getEncoded()));
+        entry.setPublicKey(Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()));
+
+        JwtSigningProperties properties = new JwtSigningProperties();
+        properties.setAlgorithm(algorithm);
+        properties.setActiveKeyId(KID);
+        properties.setKeys(List.of(entry));
+
+        JwtKeyStore keyStore = new JwtKeyStore(properties);
+        ReflectionTestUtils.setField(keyStore, "secret", SECRET);
+        keyStore.init();
+        return keyStore;
+    }
+
+    private static String sign(JwtKeyStore keyStore) {
+        return keyStore.signWith(Jwts.builder().subject("1")).compact();
+    }
+
+    private static Jws<Claims> parse(JwtKeyStore keyStore, String token) {
+        return Jwts.parser().keyLocator(keyStore).build().parseSignedClaims(token);
+    }
+
+    private static KeyPair generate(String algorithm, String curve) throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance(algorithm);
+        if (curve != null) {
+            generator.initialize(new ECGenParameterSpec(curve));
+        }
+        return generator.generateKeyPair();
+    }
+}
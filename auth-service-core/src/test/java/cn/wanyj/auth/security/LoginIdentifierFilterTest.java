@@ -0,0 +1,116 @@
+package cn.wanyj.auth.security;
+
+import cn.wanyj.auth.mapper.LoginIdentifierMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * LoginIdentifierFilter tests - 登录标识过滤器测试
+ * 过滤器加载期间通过 pub/sub 收到的新标识不能丢失，否则可用性检查会把已占用的用户名判为未占用
+ * @author wanyj
+ */
+class LoginIdentifierFilterTest {
+
+    private static final Long TENANT_ID = 1L;
+
+    private final LoginIdentifierMapper mapper = mock(LoginIdentifierMapper.class);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private LoginIdentifierFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new LoginIdentifierFilter(mapper, mock(RedisMessageListenerContainer.class),
+                new SimpleMeterRegistry(), 1000, 3_600_000);
+        ReflectionTestUtils.setField(filter, "minCapacity", 1024);
+        ReflectionTestUtils.setField(filter, "falsePositiveRate", 0.01);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void keepsIdentifierPublishedWhileLoading() throws Exception {
+        CountDownLatch querying = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(mapper.findNormalizedValuesByTenantId(TENANT_ID)).thenAnswer(invocation -> {
+            querying.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            // Snapshot taken before "carol" committed
+            return List.of("alice");
+        });
+
+        Future<Boolean> lookup = executor.submit(() -> filter.mightBeTaken(TENANT_ID, "alice"));
+        assertTrue(querying.await(5, TimeUnit.SECONDS));
+        filter.onMessage(message(TENANT_ID + ":carol"), null);
+        release.countDown();
+
+        assertTrue(lookup.get(5, TimeUnit.SECONDS));
+        assertTrue(filter.mightBeTaken(TENANT_ID, "carol"));
+    }
+
+    @Test
+    void keepsIdentifierPublishedAfterLoading() {
+        when(mapper.findNormalizedValuesByTenantId(TENANT_ID)).thenReturn(List.of("alice"));
+        filter.mightBeTaken(TENANT_ID, "alice");
+
+        filter.onMessage(message(TENANT_ID + ":carol"), null);
+
+        assertTrue(filter.mightBeTaken(TENANT_ID, "carol"));
+    }
+
+    @Test
+    void keepsLocalAddWhileLoading() throws Exception {
+        CountDownLatch querying = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(mapper.findNormalizedValuesByTenantId(TENANT_ID)).thenAnswer(invocation -> {
+            querying.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return List.of();
+        });
+
+        Future<Boolean> lookup = executor.submit(() -> filter.mightBeTaken(TENANT_ID, "alice"));
+        assertTrue(querying.await(5, TimeUnit.SECONDS));
+        filter.add(TENANT_ID, List.of("dave", "dave@example.com"));
+        release.countDown();
+        lookup.get(5, TimeUnit.SECONDS);
+
+        assertTrue(filter.mightBeTaken(TENANT_ID, "dave"));
+        assertTrue(filter.mightBeTaken(TENANT_ID, "dave@example.com"));
+    }
+
+    @Test
+    void failedLoadIsRetried() {
+        when(mapper.findNormalizedValuesByTenantId(TENANT_ID))
+                .thenThrow(new IllegalStateException("database unavailable"))
+                .thenReturn(List.of("alice"));
+
+        assertThrows(IllegalStateException.class, () -> filter.mightBeTaken(TENANT_ID, "alice"));
+
+        assertTrue(filter.mightBeTaken(TENANT_ID, "alice"));
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(LoginNegativeCache.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
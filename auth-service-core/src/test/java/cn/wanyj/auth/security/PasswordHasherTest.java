@@ -0,0 +1,185 @@
+package cn.wanyj.auth.security;
+
+import cn.wanyj.auth.exception.BusinessException;
+import cn.wanyj.auth.exception.ErrorCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * PasswordHasher tests - 密码哈希执行器测试
+ * 使用单个哈希线程，先用一个阻塞任务占住线程，再观察排队任务的出队顺序与拒绝行为
+ * @author wanyj
+ */
+class PasswordHasherTest {
+
+    private static final String BLOCK = "block";
+    private static final Long BLOCKING_TENANT = 99L;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RecordingEncoder encoder = new RecordingEncoder();
+    private PasswordHasher hasher;
+
+    @AfterEach
+    void tearDown() {
+        encoder.release.countDown();
+        if (hasher != null) {
+            hasher.shutdown();
+        }
+    }
+
+    @Test
+    void servesTenantsRoundRobin() throws Exception {
+        hasher = new PasswordHasher(encoder, meterRegistry, 1, 100, 100);
+        CompletableFuture<String> blocking = blockWorker();
+
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        futures.add(hasher.encode(1L, "a1"));
+        futures.add(hasher.encode(1L, "a2"));
+        futures.add(hasher.encode(1L, "a3"));
+        futures.add(hasher.encode(2L, "b1"));
+        futures.add(hasher.encode(2L, "b2"));
+        futures.add(hasher.encode(3L, "c1"));
+
+        encoder.release.countDown();
+        blocking.get(5, TimeUnit.SECONDS);
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(BLOCK, "a1", "b1", "c1", "a2", "b2", "a3"), encoder.encoded);
+    }
+
+    @Test
+    void rejectsWhenTenantShareIsFull() throws Exception {
+        hasher = new PasswordHasher(encoder, meterRegistry, 1, 100, 2);
+        blockWorker();
+
+        CompletableFuture<String> first = hasher.encode(1L, "a1");
+        CompletableFuture<String> second = hasher.encode(1L, "a2");
+        CompletableFuture<String> third = hasher.encode(1L, "a3");
+        CompletableFuture<String> otherTenant = hasher.encode(2L, "b1");
+
+        assertRejected(third, ErrorCode.TOO_MANY_REQUESTS);
+        assertFalse(first.isDone());
+        assertFalse(second.isDone());
+        assertFalse(otherTenant.isDone());
+        assertEquals(1.0, meterRegistry.counter("password.hashing.rejected").count());
+    }
+
+    @Test
+    void rejectsWhenQueueIsFull() throws Exception {
+        hasher = new PasswordHasher(encoder, meterRegistry, 1, 3, 3);
+        blockWorker();
+
+        hasher.encode(1L, "a1");
+        hasher.encode(2L, "b1");
+        hasher.encode(3L, "c1");
+        CompletableFuture<String> overflow = hasher.encode(4L, "d1");
+
+        assertRejected(overflow, ErrorCode.TOO_MANY_REQUESTS);
+        assertEquals(1.0, meterRegistry.counter("password.hashing.rejected").count());
+    }
+
+    @Test
+    void gaugeReportsQueuedTasks() throws Exception {
+        hasher = new PasswordHasher(encoder, meterRegistry, 1, 100, 100);
+        CompletableFuture<String> blocking = blockWorker();
+
+        CompletableFuture<String> first = hasher.encode(1L, "a1");
+        CompletableFuture<String> second = hasher.encode(1L, "a2");
+        CompletableFuture<String> third = hasher.encode(2L, "b1");
+        // The blocking task is running, not queued
+        assertEquals(3.0, queued());
+
+        encoder.release.countDown();
+        CompletableFuture.allOf(blocking, first, second, third).get(5, TimeUnit.SECONDS);
+        assertEquals(0.0, queued());
+    }
+
+    @Test
+    void shutdownFailsQueuedTasks() throws Exception {
+        hasher = new PasswordHasher(encoder, meterRegistry, 1, 100, 100);
+        blockWorker();
+
+        CompletableFuture<String> first = hasher.encode(1L, "a1");
+        CompletableFuture<String> second = hasher.encode(2L, "b1");
+        hasher.shutdown();
+
+        assertRejected(first, ErrorCode.SERVICE_UNAVAILABLE);
+        assertRejected(second, ErrorCode.SERVICE_UNAVAILABLE);
+        assertRejected(hasher.encode(1L, "a2"), ErrorCode.SERVICE_UNAVAILABLE);
+        assertEquals(0.0, queued());
+    }
+
+    @Test
+    void matchesDelegatesToEncoder() throws Exception {
+        hasher = new PasswordHasher(encoder, meterRegistry, 2, 100, 100);
+
+        assertTrue(hasher.matches(1L, "secret", "{test}secret").get(5, TimeUnit.SECONDS));
+        assertFalse(hasher.matches(1L, "wrong", "{test}secret").get(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Occupy the only worker until the encoder is released
+     */
+    private CompletableFuture<String> blockWorker() throws InterruptedException {
+        CompletableFuture<String> blocking = hasher.encode(BLOCKING_TENANT, BLOCK);
+        assertTrue(encoder.blocked.await(5, TimeUnit.SECONDS));
+        return blocking;
+    }
+
+    private double queued() {
+        return meterRegistry.get("password.hashing.queued").gauge().value();
+    }
+
+    private static void assertRejected(CompletableFuture<?> future, ErrorCode errorCode) {
+        assertTrue(future.isCompletedExceptionally());
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        BusinessException cause = assertInstanceOf(BusinessException.class, e.getCause());
+        assertEquals(errorCode.getCode(), cause.getCode());
+    }
+
+    /**
+     * Records the order in which passwords are hashed; "block" waits until released
+     */
+    private static final class RecordingEncoder implements PasswordEncoder {
+
+        private final List<String> encoded = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch blocked = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            String raw = rawPassword.toString();
+            if (BLOCK.equals(raw)) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            encoded.add(raw);
+            return "{test}" + raw;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return ("{test}" + rawPassword).equals(encodedPassword);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package cn.wanyj.auth.security;
+
+import cn.wanyj.auth.config.JwtSigningProperties;
+import cn.wanyj.auth.entity.User;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * RevocationWatermarks tests - 令牌撤销水位线测试
+ * 令牌携带毫秒精度的签发时间：撤销后立即签发的令牌有效，撤销前签发的令牌失效；旧令牌退回到秒级的 iat
+ * @author wanyj
+ */
+class RevocationWatermarksTest {
+
+    private static final Long TENANT_ID = 1L;
+    private static final Long USER_ID = 7L;
+
+    @SuppressWarnings("unchecked")
+    private final ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+
+    private JwtKeyStore keyStore;
+    private JwtTokenProvider tokenProvider;
+    private RevocationWatermarks watermarks;
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        watermarks = new RevocationWatermarks(redisTemplate, mock(RedisMessageListenerContainer.class), 1000, 300_000);
+        ReflectionTestUtils.setField(watermarks, "refreshTokenExpiration", 604_800_000L);
+
+        keyStore = new JwtKeyStore(new JwtSigningProperties());
+        ReflectionTestUtils.setField(keyStore, "secret", "Yo3bOIzQhkFc+lRvAEj90Hvx89IzgEC5FduXDPCTiB0=");
+        keyStore.init();
+        tokenProvider = new JwtTokenProvider(keyStore);
+        ReflectionTestUtils.setField(tokenProvider, "accessTokenExpiration", 3_600_000L);
+        ReflectionTestUtils.setField(tokenProvider, "refreshTokenExpiration", 604_800_000L);
+        tokenProvider.init();
+    }
+
+    @Test
+    void tokensIssuedRightAfterRevocationAreValid() {
+        // e.g. revokeAllTokens followed at once by generateToken
+        watermarks.revokeUser(TENANT_ID, USER_ID);
+        String accessToken = tokenProvider.generateAccessToken(user());
+        String refreshToken = tokenProvider.generateRefreshToken(user());
+
+        assertFalse(isRevoked(accessToken));
+        assertFalse(isRevoked(refreshToken));
+    }
+
+    @Test
+    void comparesAtMillisecondPrecision() {
+        long watermark = revokeAndCaptureWatermark();
+
+        assertTrue(watermarks.isRevoked(TENANT_ID, USER_ID, Instant.ofEpochMilli(watermark - 1)));
+        assertFalse(watermarks.isRevoked(TENANT_ID, USER_ID, Instant.ofEpochMilli(watermark)));
+        assertFalse(watermarks.isRevoked(TENANT_ID, USER_ID + 1, Instant.ofEpochMilli(watermark - 1)));
+    }
+
+    @Test
+    void parsedIssueTimeHasMillisecondPrecision() {
+        Instant before = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        ParsedToken parsed = tokenProvider.parseToken(tokenProvider.generateAccessToken(user()));
+
+        // A second-precision iat would fall before this unless the clock was on a whole second
+        assertFalse(parsed.getIssuedAt().isBefore(before));
+    }
+
+    @Test
+    void legacyTokenFallsBackToSecondPrecisionIat() {
+        // Issued before iat_ms existed: only iat, which JWT stores in whole seconds
+        Date issuedAt = new Date(1_700_000_000_999L);
+        String legacy = keyStore.signWith(Jwts.builder()
+                .id(UUID.randomUUID().toString())
+                .subject(String.valueOf(USER_ID))
+                .claim("tenant_id", TENANT_ID)
+                .issuedAt(issuedAt)
+                .expiration(new Date(System.currentTimeMillis() + 3_600_000L))).compact();
+
+        ParsedToken parsed = tokenProvider.parseToken(legacy);
+
+        assertEquals(Instant.ofEpochMilli(1_700_000_000_000L), parsed.getIssuedAt());
+    }
+
+    @Test
+    void claimsWatermarkUsesMillisecondPrecision() {
+        watermarks.markUserClaimsStale(TENANT_ID, USER_ID);
+        ParsedToken reissued = tokenProvider.parseToken(tokenProvider.generateAccessToken(user()));
+
+        assertFalse(watermarks.isClaimsStale(TENANT_ID, USER_ID, reissued.getIssuedAt()));
+    }
+
+    private long revokeAndCaptureWatermark() {
+        watermarks.revokeUser(TENANT_ID, USER_ID);
+        ArgumentCaptor<String> value = ArgumentCaptor.forClass(String.class);
+        verify(valueOperations).set(eq("revoke_before:user:" + TENANT_ID + ":" + USER_ID), value.capture(),
+                anyLong(), eq(TimeUnit.MILLISECONDS));
+        return Long.parseLong(value.getValue());
+    }
+
+    private boolean isRevoked(String token) {
+        ParsedToken parsed = tokenProvider.parseToken(token);
+        return watermarks.isRevoked(parsed.getTenantId(), parsed.getUserId(), parsed.getIssuedAt());
+    }
+
+    private static User user() {
+        return User.builder().id(USER_ID).tenantId(TENANT_ID).username("alice").build();
+    }
+}
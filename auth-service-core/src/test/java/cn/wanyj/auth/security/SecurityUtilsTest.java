@@ -0,0 +1,32 @@
+package cn.wanyj.auth.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * SecurityUtils tests - 安全工具类测试
+ * 角色编码无论是否自带 ROLE_ 前缀，令牌声明与数据库两条路径都得到相同的角色权限名
+ * @author wanyj
+ */
+class SecurityUtilsTest {
+
+    @Test
+    void stripsOnlyLeadingPrefix() {
+        assertEquals("ADMIN", SecurityUtils.stripRolePrefix("ROLE_ADMIN"));
+        assertEquals("EDITOR", SecurityUtils.stripRolePrefix("EDITOR"));
+        assertEquals("REPORT_ROLE_VIEWER", SecurityUtils.stripRolePrefix("ROLE_REPORT_ROLE_VIEWER"));
+        assertEquals("ROLE_X", SecurityUtils.stripRolePrefix("ROLE_ROLE_X"));
+    }
+
+    @Test
+    void claimAndDatabaseCodesMapToSameAuthority() {
+        for (String code : new String[]{"ROLE_ADMIN", "EDITOR", "ROLE_REPORT_ROLE_VIEWER"}) {
+            // Token claims hold the stripped code, the database the code as created
+            assertEquals(SecurityUtils.toRoleAuthority(code),
+                    SecurityUtils.toRoleAuthority(SecurityUtils.stripRolePrefix(code)));
+        }
+        assertEquals("ROLE_EDITOR", SecurityUtils.toRoleAuthority("EDITOR"));
+        assertEquals("ROLE_ADMIN", SecurityUtils.toRoleAuthority("ROLE_ADMIN"));
+    }
+}
@@ -0,0 +1,110 @@
+package cn.wanyj.auth.service.impl;
+
+import cn.wanyj.auth.entity.User;
+import cn.wanyj.auth.exception.BusinessException;
+import cn.wanyj.auth.exception.ErrorCode;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * PageCursor tests - 分页游标测试
+ * 编码/解码往返（含秒为零、纳秒精度的时间），以及 created_at 相同时按 id 翻页不跳过、不重复
+ * @author wanyj
+ */
+class PageCursorTest {
+
+    @Test
+    void roundTrips() {
+        PageCursor cursor = new PageCursor(LocalDateTime.of(2024, 3, 15, 8, 30, 45, 123_456_000), 42L);
+
+        assertEquals(cursor, PageCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void roundTripsZeroSecondTimestamps() {
+        // LocalDateTime.toString() drops zero seconds ("2024-01-01T10:00")
+        for (LocalDateTime createdAt : List.of(
+                LocalDateTime.of(2024, 1, 1, 10, 0),
+                LocalDateTime.of(2024, 1, 1, 0, 0),
+                LocalDateTime.of(2024, 1, 1, 10, 0, 0, 1_000))) {
+            PageCursor cursor = new PageCursor(createdAt, 7L);
+
+            assertEquals(cursor, PageCursor.decode(cursor.encode()));
+        }
+    }
+
+    @Test
+    void keepsIdForRowsWithSameCreatedAt() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 1, 10, 0);
+        PageCursor first = new PageCursor(createdAt, 10L);
+        PageCursor second = new PageCursor(createdAt, 9L);
+
+        assertNotEquals(first.encode(), second.encode());
+        assertEquals(first, PageCursor.decode(first.encode()));
+        assertEquals(second, PageCursor.decode(second.encode()));
+    }
+
+    @Test
+    void pagesThroughTiesWithoutSkippingOrRepeating() {
+        // Many rows share a created_at, and pages end in the middle of a tie
+        List<User> rows = new ArrayList<>();
+        long id = 1;
+        for (int minute = 0; minute < 4; minute++) {
+            for (int i = 0; i < 5; i++) {
+                rows.add(User.builder().id(id++).createdAt(LocalDateTime.of(2024, 1, 1, 10, minute)).build());
+            }
+        }
+        rows.sort(Comparator.comparing(User::getCreatedAt).thenComparing(User::getId).reversed());
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            PageCursor after = cursor != null ? PageCursor.decode(cursor) : null;
+            List<User> page = findPage(rows, after, 3 + 1);
+            boolean hasMore = page.size() > 3;
+            if (hasMore) {
+                page = page.subList(0, 3);
+            }
+            page.forEach(user -> seen.add(user.getId()));
+            cursor = hasMore ? PageCursor.of(page.get(page.size() - 1)).encode() : null;
+        } while (cursor != null);
+
+        assertEquals(rows.stream().map(User::getId).toList(), seen);
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        for (String cursor : List.of("not base64!", "bm8tc2VwYXJhdG9y", "MjAyNC0xMy0wMVQxMDowMCwx")) {
+            BusinessException e = assertThrows(BusinessException.class, () -> PageCursor.decode(cursor));
+            assertEquals(ErrorCode.BAD_REQUEST.getCode(), e.getCode());
+        }
+    }
+
+    @Test
+    void encodesUrlSafe() {
+        String cursor = new PageCursor(LocalDateTime.of(2024, 12, 31, 23, 59, 59, 999_999_999), Long.MAX_VALUE).encode();
+
+        assertFalse(cursor.contains("+") || cursor.contains("/") || cursor.contains("="));
+    }
+
+    /**
+     * Same predicate and order as UserMapper.findPage
+     */
+    private static List<User> findPage(List<User> rows, PageCursor after, int limit) {
+        return rows.stream()
+                .filter(user -> after == null
+                        || user.getCreatedAt().isBefore(after.createdAt())
+                        || (user.getCreatedAt().isEqual(after.createdAt()) && user.getId() < after.id()))
+                .limit(limit)
+                .toList();
+    }
+}
@@ -25,6 +25,7 @@ CREATE TABLE IF NOT EXISTS `tenant` (
   `expired_at` DATETIME DEFAULT NULL COMMENT '过期时间（NULL表示永不过期）',
   `max_users` INT DEFAULT 100 COMMENT '最大用户数限制',
   `is_platform` TINYINT NOT NULL DEFAULT 0 COMMENT '是否为平台租户：0-否，1-是',
+  `user_count` INT NOT NULL DEFAULT 0 COMMENT '当前用户数（注册/删除用户时在同一事务内增减，定期对账）',
   `created_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `updated_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   PRIMARY KEY (`id`),
@@ -54,8 +55,8 @@ CREATE TABLE IF NOT EXISTS `user` (
   PRIMARY KEY (`id`),
   UNIQUE KEY `uk_username_tenant` (`username`, `tenant_id`),
   UNIQUE KEY `uk_email_tenant` (`email`, `tenant_id`),
-  KEY `idx_tenant_id` (`tenant_id`),
-  KEY `idx_phone` (`phone`),
+  KEY `idx_tenant_created` (`tenant_id`, `created_at`, `id`),
+  KEY `idx_tenant_phone` (`tenant_id`, `phone`),
   KEY `idx_status` (`status`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='用户表';
 
@@ -128,10 +129,27 @@ CREATE TABLE IF NOT EXISTS `role_permission` (
   KEY `idx_permission_id` (`permission_id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='角色权限关联表';
 
+-- ============================================
+-- Table: login_identifier (登录标识表)
+-- 用户名、邮箱、手机号各一行，登录时按规范化值（去空白、小写）唯一索引点查
+-- ============================================
+CREATE TABLE IF NOT EXISTS `login_identifier` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `tenant_id` BIGINT NOT NULL COMMENT '租户ID',
+  `kind` VARCHAR(16) NOT NULL COMMENT '标识类型：username/email/phone',
+  `normalized_value` VARCHAR(100) NOT NULL COMMENT '规范化后的标识值',
+  `user_id` BIGINT NOT NULL COMMENT '用户ID',
+  `created_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_tenant_value` (`tenant_id`, `normalized_value`),
+  KEY `idx_user_id` (`user_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='登录标识表';
+
 -- ============================================
 -- Initial Data (初始数据)
 -- ============================================
 -- 注意：如需重新初始化，请先手动清空相关表数据
+-- TRUNCATE TABLE login_identifier;
 -- TRUNCATE TABLE user_role;
 -- TRUNCATE TABLE role_permission;
 -- TRUNCATE TABLE user;
@@ -217,6 +235,36 @@ SET sql_mode=(SELECT REPLACE(@@sql_mode,'NO_AUTO_VALUE_ON_ZERO',''));
 INSERT IGNORE INTO `user_role` (`tenant_id`, `user_id`, `role_id`)
 VALUES (1, 1, 1);
 
+-- Index login identifiers of existing users (also serves as the migration for existing databases)
+-- 为已有用户建立登录标识；规范化值在租户内唯一，冲突时用户名优先，其余按插入顺序保留先出现的用户
+-- List values shared by different users before the backfill: INSERT IGNORE drops the losers silently,
+-- so those users could no longer log in with that identifier. Resolve them first (rename or clear the value).
+-- 回填前列出被多个用户共用的规范化值（含跨类型冲突，如 A 的用户名等于 B 的邮箱），应先处理，否则会被静默丢弃
+SELECT c.`tenant_id`, c.`normalized_value`,
+       GROUP_CONCAT(CONCAT(c.`kind`, ':', c.`user_id`) ORDER BY c.`user_id`) AS `claimed_by`
+FROM (
+  SELECT `tenant_id`, 'username' AS `kind`, LOWER(TRIM(`username`)) AS `normalized_value`, `id` AS `user_id` FROM `user`
+  UNION ALL
+  SELECT `tenant_id`, 'email', LOWER(TRIM(`email`)), `id` FROM `user` WHERE `email` IS NOT NULL AND `email` <> ''
+  UNION ALL
+  SELECT `tenant_id`, 'phone', LOWER(TRIM(`phone`)), `id` FROM `user` WHERE `phone` IS NOT NULL AND `phone` <> ''
+) c
+GROUP BY c.`tenant_id`, c.`normalized_value`
+HAVING COUNT(DISTINCT c.`user_id`) > 1;
+
+INSERT IGNORE INTO `login_identifier` (`tenant_id`, `kind`, `normalized_value`, `user_id`)
+SELECT `tenant_id`, 'username', LOWER(TRIM(`username`)), `id` FROM `user`;
+INSERT IGNORE INTO `login_identifier` (`tenant_id`, `kind`, `normalized_value`, `user_id`)
+SELECT `tenant_id`, 'email', LOWER(TRIM(`email`)), `id` FROM `user` WHERE `email` IS NOT NULL AND `email` <> '';
+INSERT IGNORE INTO `login_identifier` (`tenant_id`, `kind`, `normalized_value`, `user_id`)
+SELECT `tenant_id`, 'phone', LOWER(TRIM(`phone`)), `id` FROM `user` WHERE `phone` IS NOT NULL AND `phone` <> '';
+
+-- Initialize per-tenant user counters (existing databases: ALTER TABLE `tenant` ADD COLUMN `user_count` INT NOT NULL DEFAULT 0 AFTER `is_platform`;)
+-- 初始化租户用户计数
+UPDATE `tenant` t SET `user_count` = (SELECT COUNT(*) FROM `user` u WHERE u.`tenant_id` = t.`id`);
+
+-- User list keyset pagination index (existing databases: ALTER TABLE `user` DROP INDEX `idx_tenant_id`, ADD KEY `idx_tenant_created` (`tenant_id`, `created_at`, `id`);)
+
 -- ============================================
 -- Schema Initialization Complete
 -- ============================================